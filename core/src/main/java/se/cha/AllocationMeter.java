@@ -0,0 +1,45 @@
+package se.cha;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Measures heap allocation, in bytes, of the current thread, so measurements are not disturbed by unrelated work
+ * running at the same time. Work spread over several threads, like a parallel render, is measured by metering every
+ * part on the thread that runs it and adding the parts up, see {@link RenderContext#getLastRenderAllocatedBytes()}.
+ * Relies on the HotSpot extension of {@link ThreadMXBean}. Where it is not available no allocation is reported.
+ */
+public class AllocationMeter {
+
+    private static final com.sun.management.ThreadMXBean THREAD_MX_BEAN = getThreadMXBean();
+
+    private AllocationMeter() {
+    }
+
+    public static boolean isSupported() {
+        return THREAD_MX_BEAN != null;
+    }
+
+    /**
+     * @return the bytes allocated so far by the current thread, or 0 if not supported
+     */
+    public static long getCurrentThreadAllocatedBytes() {
+        if (THREAD_MX_BEAN == null) {
+            return 0L;
+        }
+
+        return Math.max(0L, THREAD_MX_BEAN.getThreadAllocatedBytes(Thread.currentThread().getId()));
+    }
+
+    private static com.sun.management.ThreadMXBean getThreadMXBean() {
+        final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        if ((threadMXBean instanceof com.sun.management.ThreadMXBean)
+                && ((com.sun.management.ThreadMXBean) threadMXBean).isThreadAllocatedMemorySupported()) {
+            final com.sun.management.ThreadMXBean hotSpotThreadMXBean = (com.sun.management.ThreadMXBean) threadMXBean;
+            hotSpotThreadMXBean.setThreadAllocatedMemoryEnabled(true);
+            return hotSpotThreadMXBean;
+        }
+
+        return null;
+    }
+}
@@ -0,0 +1,180 @@
+package se.cha;
+
+public class Cie {
+
+    /**
+     * Accuracy of the CIE transfer functions.
+     */
+    public enum Accuracy {
+        /**
+         * Exact to double precision, using {@link Math#pow(double, double)}.
+         */
+        EXACT,
+        /**
+         * Approximations without {@link Math#pow(double, double)}, for preview rendering and other throughput bound work.
+         * <ul>
+         *     <li>{@link #YtoLstar2Fast(double)}: relative error of the cube root at most {@value #FAST_CUBE_ROOT_MAX_RELATIVE_ERROR},
+         *     which is an L* error below 1.2e-4 for Y up to 100.</li>
+         *     <li>{@link #sRGBtoLinearRGBFast(double)}: absolute error at most {@value #FAST_SRGB_MAX_ERROR} for channel values
+         *     in the range (0.0, 1.0). Values above 1.0 are calculated exactly.</li>
+         * </ul>
+         * {@link #LstarToY2(double)} has no expensive operations and no approximated version.
+         */
+        FAST
+    }
+
+    static final double FAST_CUBE_ROOT_MAX_RELATIVE_ERROR = 1.02e-6;
+    static final double FAST_SRGB_MAX_ERROR = 5.0e-8;
+
+    private static final double SRGB_LINEAR_LIMIT = 0.04045;
+    private static final int SRGB_TABLE_SIZE = 4096;
+    private static final double SRGB_TABLE_SCALE = (SRGB_TABLE_SIZE - 1) / (1.0 - SRGB_LINEAR_LIMIT);
+    private static final double[] SRGB_TABLE = createSRGBtoLinearRGBTable();
+
+    public static double sRGBtoLinearRGB(double colorChannel, Accuracy accuracy) {
+        return (accuracy == Accuracy.FAST) ? sRGBtoLinearRGBFast(colorChannel) : sRGBtoLinearRGB(colorChannel);
+    }
+
+    public static double YtoLstar2(double Y, Accuracy accuracy) {
+        return (accuracy == Accuracy.FAST) ? YtoLstar2Fast(Y) : YtoLstar2(Y);
+    }
+
+    public static double sRGBtoLinearRGB(double colorChannel) {
+        // Send this function a decimal sRGB gamma encoded color channel value (R, G, or B)
+        // between 0.0 and 1.0, and it returns a linearized value.
+
+        if (colorChannel <= 0.04045) {
+            return colorChannel / 12.92;
+        } else {
+            return Math.pow(((colorChannel + 0.055) / 1.055), 2.4);
+        }
+    }
+
+    public static double sRGBtoYluminance(double linearR, double linearG, double linearB) {
+        final double Y = (0.2126 * linearR + 0.7152 * linearG + 0.0722 * linearB);
+        return Y;
+    }
+
+    /**
+     * https://stackoverflow.com/questions/596216/formula-to-determine-perceived-brightness-of-rgb-color
+     * <p>
+     * L* is a value from 0 (black) to 100 (white)
+     * where 50 is the perceptual "middle grey".
+     * L* = 50 is the equivalent of Y = 18.4, or in other words an 18% grey card,
+     * representing the middle of a photographic exposure.
+     */
+/*
+    static double YtoLstar(double Y) {
+        // Send this function a luminance value between 0.0 and 1.0,
+        // and it returns L* which is "perceptual lightness"
+
+        if (Y <= (216.0 / 24389.0)) {       // The CIE standard states 0.008856 but 216/24389 is the intent for 0.008856451679036
+            return Y * (24389.0 / 27.0);    // The CIE standard states 903.3, but 24389/27 is the intent, making 903.296296296296296
+        } else {
+            return Math.pow(Y, (1.0 / 3.0)) * 116.0 - 16.0;
+        }
+    }
+*/
+
+    /**
+     * http://cs.haifa.ac.il/hagit/courses/ist/Lectures/Demos/ColorApplet2/t_convert.html#XYZ%20to%20CIE%20L*a*b*%20(CIELAB)%20&%20CIELAB%20to%20XYZ
+     */
+/*
+    static double LstarToY(double Lstar) {
+        return Math.pow((Lstar + 16.0) / 116.0, 3.0);
+    }
+*/
+
+    /**
+     * https://en.wikipedia.org/wiki/CIELAB_color_space
+     */
+    public static double YtoLstar2(double Y) {
+        final double delta = 6.0 / 29.0;
+        final double deltaPow3 = 216.0 / 24389.0; // Math.pow(6.0 / 29.0, 3.0);
+        final double Yn = 100.0;
+        final double t = Y / Yn;
+
+        final double f;
+        if (t > deltaPow3) {
+            f = Math.pow(t, 1.0 / 3.0);
+        } else {
+            f = t / (3.0 * delta * delta) + 4.0 / 29.0;
+        }
+
+        return 116.0 * f - 16.0;
+    }
+
+    /**
+     * Same as {@link #YtoLstar2(double)} but with an approximated cube root, see {@link Accuracy#FAST}.
+     */
+    public static double YtoLstar2Fast(double Y) {
+        final double delta = 6.0 / 29.0;
+        final double deltaPow3 = 216.0 / 24389.0;
+        final double Yn = 100.0;
+        final double t = Y / Yn;
+
+        final double f;
+        if (t > deltaPow3) {
+            f = cubeRootFast(t);
+        } else {
+            f = t / (3.0 * delta * delta) + 4.0 / 29.0;
+        }
+
+        return 116.0 * f - 16.0;
+    }
+
+    /**
+     * Same as {@link #sRGBtoLinearRGB(double)} but interpolated from a table, see {@link Accuracy#FAST}.
+     */
+    public static double sRGBtoLinearRGBFast(double colorChannel) {
+        if (colorChannel <= SRGB_LINEAR_LIMIT) {
+            return colorChannel / 12.92;
+        } else if (colorChannel >= 1.0) {
+            return sRGBtoLinearRGB(colorChannel);
+        }
+
+        final double position = (colorChannel - SRGB_LINEAR_LIMIT) * SRGB_TABLE_SCALE;
+        final int index = Math.min((int) position, SRGB_TABLE_SIZE - 2);
+        final double fraction = position - index;
+
+        return SRGB_TABLE[index] + fraction * (SRGB_TABLE[index + 1] - SRGB_TABLE[index]);
+    }
+
+    /**
+     * Cube root of a positive value. The exponent bits of the value are divided by three to get a first estimate
+     * (within 4%), which is then refined with two Newton steps.
+     */
+    static double cubeRootFast(double value) {
+        double root = Double.longBitsToDouble(Double.doubleToRawLongBits(value) / 3 + 0x2A9F7893782DA1CEL);
+        root = (2.0 * root + value / (root * root)) * (1.0 / 3.0);
+        root = (2.0 * root + value / (root * root)) * (1.0 / 3.0);
+        return root;
+    }
+
+    private static double[] createSRGBtoLinearRGBTable() {
+        final double[] table = new double[SRGB_TABLE_SIZE];
+        for (int index = 0; index < SRGB_TABLE_SIZE; index++) {
+            table[index] = sRGBtoLinearRGB(SRGB_LINEAR_LIMIT + index / SRGB_TABLE_SCALE);
+        }
+        return table;
+    }
+
+    /**
+     * https://en.wikipedia.org/wiki/CIELAB_color_space
+     */
+    public static double LstarToY2(double Lstar) {
+        final double Yn = 100.0;
+        final double delta = 6.0 / 29.0;
+        final double t = (Lstar + 16.0) / 116.0;
+
+        final double f;
+        if (t > delta) {
+            f = t * t * t;
+        } else {
+            f = 3.0 * delta * delta * (t - (4.0 / 29.0));
+        }
+
+        return Yn * f;
+    }
+
+}
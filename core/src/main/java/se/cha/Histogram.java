@@ -0,0 +1,275 @@
+package se.cha;
+
+import java.util.function.DoublePredicate;
+import java.util.function.IntToDoubleFunction;
+import java.util.stream.IntStream;
+
+public class Histogram {
+
+    public enum Mode {
+        /**
+         * Histograms are derived from a fine grained base histogram, in time proportional to its amount of boxes.
+         * The values of a base box are split over the boxes it overlaps, in proportion to the overlap.
+         * Where the base boxes are wider than the boxes asked for, the histogram is calculated from every pixel value instead.
+         */
+        DERIVED,
+        /**
+         * Like {@link #DERIVED}, but for large images the base histogram is first estimated from a sample of the pixels.
+         * The exact base histogram is then calculated in the background and replaces the estimate.
+         */
+        PROGRESSIVE,
+        /**
+         * Histograms are calculated from every pixel value. Slow for large images, but exact.
+         */
+        EXACT
+    }
+
+    private final int[] boxes;
+    private final double minValue;
+    private final double maxValue;
+    private final double boxRangeInv;
+    private final int sampleStride;
+    private int maxCount;
+
+    public Histogram(int amountBoxes, double minValue, double maxValue) {
+        this(amountBoxes, minValue, maxValue, 1);
+    }
+
+    private Histogram(int amountBoxes, double minValue, double maxValue, int sampleStride) {
+        this.boxes = new int[amountBoxes];
+        this.minValue = minValue;
+        this.maxValue = maxValue;
+        this.boxRangeInv = 1.0 / ((maxValue - minValue) / (1.0 * boxes.length));
+        this.sampleStride = sampleStride;
+    }
+
+    /**
+     * Creates a histogram of values, accumulated in parallel.
+     * <p>
+     * Every thread counts its share of the values in a partial histogram of its own, without any shared state.
+     * The partial histograms are then merged and the max count is found once, after the merge.
+     * The result is identical to adding the values one by one with {@link #addValue(double)}.
+     *
+     * @param amountValues the amount of values, value indices are in the range [0, amountValues)
+     * @param values       the value for a value index
+     * @param included     which values to count, values not included are left out
+     */
+    public static Histogram create(int amountBoxes, double minValue, double maxValue, int amountValues, IntToDoubleFunction values, DoublePredicate included) {
+        final Histogram histogram = new Histogram(amountBoxes, minValue, maxValue);
+        histogram.setBoxes(histogram.accumulate(amountValues, values, included), 1);
+
+        return histogram;
+    }
+
+    /**
+     * Estimates a histogram of values from a stratified sample. The values are split in strata of sample stride
+     * consecutive values, and one value at a pseudo random position in every stratum is counted sample stride times.
+     * The estimate is accumulated in parallel like {@link #create(int, double, double, int, IntToDoubleFunction, DoublePredicate)}.
+     *
+     * @param sampleStride the amount of values per sampled value, 1 or more
+     * @see #getRelativeStandardError()
+     */
+    public static Histogram createEstimate(int amountBoxes, double minValue, double maxValue, int amountValues, int sampleStride, IntToDoubleFunction values, DoublePredicate included) {
+        if (sampleStride < 1) {
+            throw new IllegalArgumentException("Sample stride must be at least 1 but was " + sampleStride);
+        }
+
+        final int amountSamples = (int) ((amountValues + (long) sampleStride - 1) / sampleStride);
+        final Histogram histogram = new Histogram(amountBoxes, minValue, maxValue, sampleStride);
+        histogram.setBoxes(histogram.accumulate(amountSamples, sampleIndex -> values.applyAsDouble(getSampleValueIndex(sampleIndex, sampleStride, amountValues)), included), sampleStride);
+
+        return histogram;
+    }
+
+    private static int getSampleValueIndex(int sampleIndex, int sampleStride, int amountValues) {
+        // Murmur3 finalizer, spreads the sample index into a well mixed hash
+        int hash = sampleIndex;
+        hash ^= hash >>> 16;
+        hash *= 0x85EBCA6B;
+        hash ^= hash >>> 13;
+        hash *= 0xC2B2AE35;
+        hash ^= hash >>> 16;
+
+        final long valueIndex = (long) sampleIndex * sampleStride + Integer.remainderUnsigned(hash, sampleStride);
+        return (int) Math.min(valueIndex, amountValues - 1);
+    }
+
+    private int[] accumulate(int amountValues, IntToDoubleFunction values, DoublePredicate included) {
+        final int amountBoxes = boxes.length;
+
+        return IntStream.range(0, amountValues).parallel().collect(
+                () -> new int[amountBoxes],
+                (partialBoxes, valueIndex) -> {
+                    final double value = values.applyAsDouble(valueIndex);
+                    if (included.test(value)) {
+                        partialBoxes[getBoxIndex(value)]++;
+                    }
+                },
+                (partialBoxes1, partialBoxes2) -> {
+                    for (int boxIndex = 0; boxIndex < amountBoxes; boxIndex++) {
+                        partialBoxes1[boxIndex] += partialBoxes2[boxIndex];
+                    }
+                });
+    }
+
+    private void setBoxes(int[] counts, int countWeight) {
+        for (int boxIndex = 0; boxIndex < boxes.length; boxIndex++) {
+            boxes[boxIndex] = counts[boxIndex] * countWeight;
+            maxCount = Math.max(maxCount, boxes[boxIndex]);
+        }
+    }
+
+    /**
+     * Re-bins this histogram into a new histogram with another amount of boxes and value range.
+     * The values of every box of this histogram are split over the new boxes it overlaps, in proportion to the overlap.
+     * Each part is included or left out by its center value, and parts outside the new value range land in the first
+     * or last box. Counts are rounded so every box of this histogram keeps its total count.
+     * Costs time proportional to the amount of boxes, not the amount of values.
+     * <p>
+     * Splitting the few values of a box over many narrower new boxes gives a comb of rounded counts,
+     * see {@link #isFinerThan(int, double, double)}.
+     *
+     * @param included which part center values to include, parts not included are left out
+     */
+    public Histogram rebin(int amountBoxes, double minValue, double maxValue, DoublePredicate included) {
+        final Histogram histogram = new Histogram(amountBoxes, minValue, maxValue, sampleStride);
+        final double boxWidth = (this.maxValue - this.minValue) / boxes.length;
+
+        for (int boxNr = 0; boxNr < boxes.length; boxNr++) {
+            if (boxes[boxNr] > 0) {
+                // The box in units of new boxes, so new box k covers [k, k + 1)
+                final double boxStart = (this.minValue + boxNr * boxWidth - minValue) * histogram.boxRangeInv;
+                final double boxEnd = boxStart + boxWidth * histogram.boxRangeInv;
+                histogram.addSplitBox(boxStart, boxEnd, boxes[boxNr], included);
+            }
+        }
+
+        return histogram;
+    }
+
+    /**
+     * Adds the count spread over [boxStart, boxEnd), in units of boxes of this histogram.
+     * Everything below the first box is one part, and so is everything above the last box.
+     */
+    private void addSplitBox(double boxStart, double boxEnd, int count, DoublePredicate included) {
+        final int firstBoxNr = (int) Math.max(-1.0, Math.min(boxes.length, Math.floor(boxStart)));
+        final int lastBoxNr = (int) Math.max(-1.0, Math.min(boxes.length, Math.ceil(boxEnd) - 1.0));
+        final double boxLengthInv = 1.0 / (boxEnd - boxStart);
+
+        long countBefore = 0L;
+        for (int partBoxNr = firstBoxNr; partBoxNr <= lastBoxNr; partBoxNr++) {
+            final double partStart = (partBoxNr < 0) ? boxStart : Math.max(boxStart, partBoxNr);
+            final double partEnd = (partBoxNr >= boxes.length) ? boxEnd : Math.min(boxEnd, partBoxNr + 1.0);
+            final long countAfter = (partBoxNr == lastBoxNr) ? count : Math.round(count * (partEnd - boxStart) * boxLengthInv);
+
+            final int partCount = (int) (countAfter - countBefore);
+            countBefore = countAfter;
+            if ((partCount > 0) && included.test(minValue + 0.5 * (partStart + partEnd) / boxRangeInv)) {
+                final int boxIndex = Math.max(0, Math.min(boxes.length - 1, partBoxNr));
+                boxes[boxIndex] += partCount;
+                maxCount = Math.max(maxCount, boxes[boxIndex]);
+            }
+        }
+    }
+
+    /**
+     * @return true if the boxes of this histogram are at most as wide as those of a histogram with the amount of
+     * boxes and value range, so {@link #rebin(int, double, double, DoublePredicate)} gives every new box a share
+     * of at least one box
+     */
+    public boolean isFinerThan(int amountBoxes, double minValue, double maxValue) {
+        return (this.maxValue - this.minValue) / boxes.length <= (maxValue - minValue) / amountBoxes;
+    }
+
+    /**
+     * Re-bins this histogram with a new value for every box, like the box center values pushed through a transfer
+     * function, see {@link #getBoxCenterValues(double[])}. All values of a box are moved into the new box its new
+     * value falls in. Costs time proportional to the amount of boxes, not the amount of values.
+     * The new histogram is an estimate if this histogram is.
+     *
+     * @param boxValues the new value of every box of this histogram
+     * @param included  which new values to include, boxes not included are left out
+     */
+    public Histogram rebin(int amountBoxes, double minValue, double maxValue, double[] boxValues, DoublePredicate included) {
+        final Histogram histogram = new Histogram(amountBoxes, minValue, maxValue, sampleStride);
+
+        for (int boxNr = 0; boxNr < boxes.length; boxNr++) {
+            if ((boxes[boxNr] > 0) && included.test(boxValues[boxNr])) {
+                histogram.addValues(boxValues[boxNr], boxes[boxNr]);
+            }
+        }
+
+        return histogram;
+    }
+
+    public void addValue(double value) {
+        addValues(value, 1);
+    }
+
+    /**
+     * Adds the value count times.
+     */
+    public void addValues(double value, int count) {
+        final int boxIndex = getBoxIndex(value);
+        boxes[boxIndex] += count;
+        maxCount = Math.max(maxCount, boxes[boxIndex]);
+    }
+
+    private int getBoxIndex(double value) {
+        return Math.max(0, Math.min(boxes.length - 1, (int) ((value - minValue) * boxRangeInv)));
+    }
+
+    public double getValueRGB(int boxNr) {
+        return boxes[boxNr] / (1.0 * maxCount);
+    }
+
+    /**
+     * @return the value in the middle of the box value range
+     */
+    public double getBoxCenterValue(int boxNr) {
+        return minValue + (boxNr + 0.5) * (maxValue - minValue) / boxes.length;
+    }
+
+    /**
+     * Writes the center value of every box into the array, which must have room for all boxes.
+     */
+    public void getBoxCenterValues(double[] out) {
+        for (int boxNr = 0; boxNr < boxes.length; boxNr++) {
+            out[boxNr] = getBoxCenterValue(boxNr);
+        }
+    }
+
+    public int getCount(int boxNr) {
+        return boxes[boxNr];
+    }
+
+    public int getMaxCount() {
+        return maxCount;
+    }
+
+    /**
+     * @return true if the histogram is estimated from a sample of the values
+     */
+    public boolean isEstimate() {
+        return sampleStride > 1;
+    }
+
+    /**
+     * The relative standard error of the count in the fullest box, and so of the histogram scale.
+     * Counts of sampled values are approximately Poisson distributed, so a box estimated from n sampled values
+     * has a relative standard error of 1 / sqrt(n). Boxes with fewer values have a larger relative error.
+     *
+     * @return the relative standard error, 0.0 for an exact histogram
+     */
+    public double getRelativeStandardError() {
+        if (!isEstimate() || (maxCount == 0)) {
+            return 0.0;
+        }
+
+        return 1.0 / Math.sqrt(maxCount / (double) sampleStride);
+    }
+
+    public int getAmountBoxes() {
+        return boxes.length;
+    }
+}
@@ -0,0 +1,195 @@
+package se.cha;
+
+/**
+ * Planar storage of the R, G, and B channels and the L* intensity of every pixel in a raw image.
+ * <p>
+ * The raw image file holds 32 bit float values. They can either be kept as doubles, 32 bytes per pixel,
+ * or as floats, 16 bytes per pixel, which halves the memory needed for large images.
+ */
+public abstract class PixelData {
+
+    public enum StorageMode {
+        /**
+         * Channels and intensity are stored as 64 bit doubles.
+         */
+        DOUBLE,
+        /**
+         * Channels and intensity are stored as 32 bit floats, the same precision as in the raw image file.
+         */
+        FLOAT,
+        /**
+         * Use {@link #DOUBLE} if it fits comfortably in the available heap, otherwise {@link #FLOAT}.
+         */
+        AUTO
+    }
+
+    private final int amountPixels;
+
+    protected PixelData(int amountPixels) {
+        this.amountPixels = amountPixels;
+    }
+
+    public static PixelData create(StorageMode storageMode, int amountPixels) {
+        switch (resolve(storageMode, amountPixels)) {
+            case FLOAT:
+                return new FloatPixelData(amountPixels);
+            case DOUBLE:
+            default:
+                return new DoublePixelData(amountPixels);
+        }
+    }
+
+    /**
+     * Resolves {@link StorageMode#AUTO} into a concrete storage mode for the amount of pixels.
+     * Double storage is picked as long as it uses at most half of the max heap size.
+     */
+    static StorageMode resolve(StorageMode storageMode, int amountPixels) {
+        if (storageMode != StorageMode.AUTO) {
+            return storageMode;
+        }
+
+        final long doubleStorageBytes = (long) amountPixels * DoublePixelData.BYTES_PER_PIXEL;
+        return (doubleStorageBytes <= Runtime.getRuntime().maxMemory() / 2) ? StorageMode.DOUBLE : StorageMode.FLOAT;
+    }
+
+    public int getAmountPixels() {
+        return amountPixels;
+    }
+
+    public abstract StorageMode getStorageMode();
+
+    public abstract long getSizeBytes();
+
+    public abstract double getR(int pixelIndex);
+
+    public abstract double getG(int pixelIndex);
+
+    public abstract double getB(int pixelIndex);
+
+    /**
+     * @return the CIE 1931 L* intensity of the pixel
+     */
+    public abstract double getIntensity(int pixelIndex);
+
+    public abstract void setRGB(int pixelIndex, double r, double g, double b);
+
+    public abstract void setIntensity(int pixelIndex, double intensity);
+
+    private static class DoublePixelData extends PixelData {
+        private static final int BYTES_PER_PIXEL = 4 * Double.BYTES;
+
+        private final double[] r;
+        private final double[] g;
+        private final double[] b;
+        private final double[] intensityLstar;
+
+        DoublePixelData(int amountPixels) {
+            super(amountPixels);
+            r = new double[amountPixels];
+            g = new double[amountPixels];
+            b = new double[amountPixels];
+            intensityLstar = new double[amountPixels];
+        }
+
+        @Override
+        public StorageMode getStorageMode() {
+            return StorageMode.DOUBLE;
+        }
+
+        @Override
+        public long getSizeBytes() {
+            return (long) getAmountPixels() * BYTES_PER_PIXEL;
+        }
+
+        @Override
+        public double getR(int pixelIndex) {
+            return r[pixelIndex];
+        }
+
+        @Override
+        public double getG(int pixelIndex) {
+            return g[pixelIndex];
+        }
+
+        @Override
+        public double getB(int pixelIndex) {
+            return b[pixelIndex];
+        }
+
+        @Override
+        public double getIntensity(int pixelIndex) {
+            return intensityLstar[pixelIndex];
+        }
+
+        @Override
+        public void setRGB(int pixelIndex, double r, double g, double b) {
+            this.r[pixelIndex] = r;
+            this.g[pixelIndex] = g;
+            this.b[pixelIndex] = b;
+        }
+
+        @Override
+        public void setIntensity(int pixelIndex, double intensity) {
+            intensityLstar[pixelIndex] = intensity;
+        }
+    }
+
+    private static class FloatPixelData extends PixelData {
+        private static final int BYTES_PER_PIXEL = 4 * Float.BYTES;
+
+        private final float[] r;
+        private final float[] g;
+        private final float[] b;
+        private final float[] intensityLstar;
+
+        FloatPixelData(int amountPixels) {
+            super(amountPixels);
+            r = new float[amountPixels];
+            g = new float[amountPixels];
+            b = new float[amountPixels];
+            intensityLstar = new float[amountPixels];
+        }
+
+        @Override
+        public StorageMode getStorageMode() {
+            return StorageMode.FLOAT;
+        }
+
+        @Override
+        public long getSizeBytes() {
+            return (long) getAmountPixels() * BYTES_PER_PIXEL;
+        }
+
+        @Override
+        public double getR(int pixelIndex) {
+            return r[pixelIndex];
+        }
+
+        @Override
+        public double getG(int pixelIndex) {
+            return g[pixelIndex];
+        }
+
+        @Override
+        public double getB(int pixelIndex) {
+            return b[pixelIndex];
+        }
+
+        @Override
+        public double getIntensity(int pixelIndex) {
+            return intensityLstar[pixelIndex];
+        }
+
+        @Override
+        public void setRGB(int pixelIndex, double r, double g, double b) {
+            this.r[pixelIndex] = (float) r;
+            this.g[pixelIndex] = (float) g;
+            this.b[pixelIndex] = (float) b;
+        }
+
+        @Override
+        public void setIntensity(int pixelIndex, double intensity) {
+            intensityLstar[pixelIndex] = (float) intensity;
+        }
+    }
+}
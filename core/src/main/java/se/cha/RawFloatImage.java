@@ -0,0 +1,729 @@
+package se.cha;
+
+import se.cha.function.ToneCurve;
+
+import java.awt.image.BufferedImage;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.channels.FileChannel;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BooleanSupplier;
+import java.util.stream.IntStream;
+
+public class RawFloatImage {
+    private static final int HEADER_SIZE_BYTES = 4 * 4;
+    private static final int BYTES_PER_PIXEL = 3 * 4;
+    private static final int MAX_PIXELS_PER_MAPPING = Integer.MAX_VALUE / BYTES_PER_PIXEL;
+    private static final int SLICE_PIXELS = 64 * 1024;
+    private static final int PROXY_SCALE_DIVISOR = 4;
+    private static final int BASE_HISTOGRAM_BOXES = 64 * 1024;
+    private static final int DEFAULT_HISTOGRAM_SAMPLE_SIZE = 1024 * 1024;
+
+    private int width;
+    private int height;
+
+    private PixelData pixelData;
+    private PixelData.StorageMode storageMode = PixelData.StorageMode.DOUBLE;
+    private Cie.Accuracy cieAccuracy = Cie.Accuracy.EXACT;
+    private Histogram.Mode histogramMode = Histogram.Mode.DERIVED;
+
+    private double intensityMinValue;
+    private double intensityMaxValue;
+    private double channelMaxValue;
+
+    private int histogramSampleSize = DEFAULT_HISTOGRAM_SAMPLE_SIZE;
+    private final List<HistogramChangedListener> histogramChangedListeners = new CopyOnWriteArrayList<>();
+    private int loadGeneration = 0;
+
+    private Histogram baseIntensityHistogram = null;
+    private double[] histogramTransferInput = new double[0];
+    private double[] histogramTransferOutput = new double[0];
+    private Histogram intensityHistogram = null;
+    private Range intensityHistogramRange = null;
+
+    private BufferedImage image;
+    private RawFloatImage proxy = null;
+    private RawFloatImage downsampledImage = null;
+
+    private double loadBytesPerSecond;
+
+    // Read once per render, so a render keeps the pool it started on when the parallelism is changed
+    private volatile ForkJoinPool renderPool = ForkJoinPool.commonPool();
+    private long lastRenderNanos;
+
+    public synchronized void clear() {
+        loadGeneration++;
+        width = -1;
+        height = -1;
+        image = null;
+        proxy = null;
+        downsampledImage = null;
+        baseIntensityHistogram = null;
+        intensityHistogram = null;
+        intensityHistogramRange = null;
+        pixelData = PixelData.create(PixelData.StorageMode.DOUBLE, 0);
+        intensityMaxValue = -Double.MAX_VALUE;
+        intensityMinValue = Double.MAX_VALUE;
+        channelMaxValue = -Double.MAX_VALUE;
+    }
+
+    public boolean isValid() {
+        return (width > 0) && (height > 0);
+    }
+
+    public void loadFile(File file) throws IOException {
+        loadFile(new FileInputStream(file), storageMode);
+    }
+
+    public void loadFile(File file, PixelData.StorageMode storageMode) throws IOException {
+        loadFile(new FileInputStream(file), storageMode);
+    }
+
+    public void loadFile(String filename) throws IOException {
+        final FileInputStream fileInputStream = new FileInputStream(filename);
+        loadFile(fileInputStream, storageMode);
+    }
+
+    private synchronized void loadFile(FileInputStream fileInputStream, PixelData.StorageMode storageMode) throws IOException {
+        final long startTime = System.nanoTime();
+        final long payloadBytes;
+        double tmpChannelMax = -(Double.MAX_VALUE - 1);
+
+        try (FileChannel channel = fileInputStream.getChannel()) {
+            final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE_BYTES).order(ByteOrder.BIG_ENDIAN);
+            readFully(channel, header);
+            header.flip();
+
+            // Major and minor version, no version needs special treatment
+            header.getInt();
+            header.getInt();
+
+            final int loadedWidth = header.getInt();
+            final int loadedHeight = header.getInt();
+
+            final int amountPixels = loadedWidth * loadedHeight;
+            payloadBytes = (long) amountPixels * BYTES_PER_PIXEL;
+
+            // Validate before anything is changed, so a failed load leaves the image as it was
+            if (channel.size() < HEADER_SIZE_BYTES + payloadBytes) {
+                throw new EOFException("Raw image file is truncated. Expected " + (HEADER_SIZE_BYTES + payloadBytes) + " bytes but was " + channel.size() + " bytes.");
+            }
+
+            final PixelData loadedPixelData = PixelData.create(storageMode, amountPixels);
+
+            // A single mapping can not exceed 2GB, so very large images are mapped region by region
+            for (int regionStart = 0; regionStart < amountPixels; regionStart += MAX_PIXELS_PER_MAPPING) {
+                final int regionPixels = Math.min(MAX_PIXELS_PER_MAPPING, amountPixels - regionStart);
+                final FloatBuffer samples = channel
+                        .map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE_BYTES + (long) regionStart * BYTES_PER_PIXEL, (long) regionPixels * BYTES_PER_PIXEL)
+                        .order(ByteOrder.BIG_ENDIAN)
+                        .asFloatBuffer();
+                tmpChannelMax = Math.max(tmpChannelMax, decodePixels(samples, loadedPixelData, regionStart, regionPixels));
+            }
+
+            this.width = loadedWidth;
+            this.height = loadedHeight;
+            this.pixelData = loadedPixelData;
+        }
+        this.channelMaxValue = tmpChannelMax;
+
+        final double loadSeconds = (System.nanoTime() - startTime) / 1.0e9;
+        this.loadBytesPerSecond = payloadBytes / Math.max(loadSeconds, 1.0e-9);
+
+        this.image = null;
+        this.intensityHistogram = null;
+        this.intensityHistogramRange = null;
+
+        calculateIntensities();
+
+        loadGeneration++;
+        this.baseIntensityHistogram = createBaseIntensityHistogram();
+
+        this.proxy = createDownsampledImage(
+                Math.max(1, width / PROXY_SCALE_DIVISOR),
+                Math.max(1, height / PROXY_SCALE_DIVISOR));
+        this.downsampledImage = null;
+    }
+
+    /**
+     * With histogram mode {@link Histogram.Mode#PROGRESSIVE} the base histogram of an image with more pixels than
+     * the histogram sample size is estimated from a sample. The exact base histogram is calculated in the background
+     * and swapped in when done, then the histogram changed listeners are notified.
+     */
+    private Histogram createBaseIntensityHistogram() {
+        final int amountPixels = width * height;
+        final int sampleStride = amountPixels / histogramSampleSize;
+        final PixelData loadedPixelData = pixelData;
+        final double loadedIntensityMaxValue = intensityMaxValue;
+
+        if ((histogramMode != Histogram.Mode.PROGRESSIVE) || (sampleStride < 2)) {
+            return Histogram.create(BASE_HISTOGRAM_BOXES, 0.0, loadedIntensityMaxValue, amountPixels, loadedPixelData::getIntensity, intensityValue -> true);
+        }
+
+        final int generation = loadGeneration;
+        CompletableFuture.runAsync(() -> {
+            final Histogram exactHistogram = Histogram.create(BASE_HISTOGRAM_BOXES, 0.0, loadedIntensityMaxValue, amountPixels, loadedPixelData::getIntensity, intensityValue -> true);
+            if (swapBaseIntensityHistogram(generation, exactHistogram)) {
+                notifyHistogramChangedListeners();
+            }
+        });
+
+        return Histogram.createEstimate(BASE_HISTOGRAM_BOXES, 0.0, loadedIntensityMaxValue, amountPixels, sampleStride, loadedPixelData::getIntensity, intensityValue -> true);
+    }
+
+    /**
+     * Replaces the base histogram, unless another file has been loaded since the histogram calculation started.
+     */
+    private synchronized boolean swapBaseIntensityHistogram(int generation, Histogram histogram) {
+        if (generation != loadGeneration) {
+            return false;
+        }
+
+        baseIntensityHistogram = histogram;
+        intensityHistogram = null;
+        return true;
+    }
+
+    /**
+     * A copy of this image downsampled to the target size, for rendering only the pixels actually displayed.
+     * The latest copy is kept and reused as long as the same size is asked for.
+     * An image already as small as the target size is returned as a view of the loaded pixels, unaffected by later loads.
+     *
+     * @see #getDownsampledImage(int, int, BooleanSupplier)
+     */
+    public RawFloatImage getDownsampledImage(int targetWidth, int targetHeight) {
+        return getDownsampledImage(targetWidth, targetHeight, () -> false);
+    }
+
+    /**
+     * Same as {@link #getDownsampledImage(int, int)}, but the downsampling stops when cancelled, checked once per row.
+     * Targets that fit within the proxy are downsampled from the proxy instead of from the full resolution pixels.
+     * <p>
+     * Can be called from a render thread. The loaded pixels are picked up with the lock held, but the downsampling is
+     * made without it, so file loading and other callers are not blocked by it.
+     *
+     * @return the downsampled copy, or null if cancelled
+     */
+    public RawFloatImage getDownsampledImage(int targetWidth, int targetHeight, BooleanSupplier cancelled) {
+        final RawFloatImage source;
+        final int generation;
+        synchronized (this) {
+            if ((targetWidth >= width) && (targetHeight >= height)) {
+                // Not this image, a render on another thread must not see a file loaded meanwhile
+                return createView();
+            }
+
+            if ((downsampledImage != null) && (downsampledImage.width == targetWidth) && (downsampledImage.height == targetHeight)) {
+                return downsampledImage;
+            }
+
+            final boolean fitsProxy = (proxy != null) && (targetWidth <= proxy.width) && (targetHeight <= proxy.height);
+            source = fitsProxy ? proxy : createView();
+            generation = loadGeneration;
+        }
+
+        final RawFloatImage createdImage = source.createDownsampledImage(targetWidth, targetHeight, cancelled);
+        if (createdImage == null) {
+            return null;
+        }
+        createdImage.renderPool = renderPool;
+
+        synchronized (this) {
+            // A file loaded meanwhile makes the copy stale, it is still returned for the request it was made for
+            if (generation == loadGeneration) {
+                downsampledImage = createdImage;
+            }
+        }
+
+        return createdImage;
+    }
+
+    /**
+     * A low resolution copy of this image, a quarter of the width and height, created when the file is loaded.
+     * Rendering the proxy gives fast interactive feedback, it renders with the same intensity scale as this image.
+     */
+    public RawFloatImage getProxy() {
+        return proxy;
+    }
+
+    /**
+     * Creates a smaller copy of this image. Each pixel in the copy is the average of the area it covers in this image.
+     * The copy keeps the channel and intensity max values of this image, so a tone curve renders the same in both.
+     * The copy is only rendered for display, so its intensities are always calculated with {@link Cie.Accuracy#FAST}.
+     */
+    RawFloatImage createDownsampledImage(int targetWidth, int targetHeight) {
+        return createDownsampledImage(targetWidth, targetHeight, () -> false);
+    }
+
+    /**
+     * @return the downsampled copy, or null if cancelled
+     */
+    private RawFloatImage createDownsampledImage(int targetWidth, int targetHeight, BooleanSupplier cancelled) {
+        final RawFloatImage downsampledImage = new RawFloatImage();
+        downsampledImage.width = targetWidth;
+        downsampledImage.height = targetHeight;
+        downsampledImage.pixelData = PixelData.create(pixelData.getStorageMode(), targetWidth * targetHeight);
+        downsampledImage.storageMode = storageMode;
+        downsampledImage.cieAccuracy = Cie.Accuracy.FAST;
+        downsampledImage.channelMaxValue = channelMaxValue;
+        downsampledImage.intensityMinValue = intensityMinValue;
+        downsampledImage.intensityMaxValue = intensityMaxValue;
+        downsampledImage.renderPool = renderPool;
+
+        final PixelData targetPixelData = downsampledImage.pixelData;
+        final double channelMaxValueInv = 1.0 / channelMaxValue;
+
+        IntStream.range(0, targetHeight).parallel().forEach(targetY -> {
+            if (cancelled.getAsBoolean()) {
+                return;
+            }
+
+            final int fromY = (int) ((long) targetY * height / targetHeight);
+            final int toY = Math.max(fromY + 1, (int) ((long) (targetY + 1) * height / targetHeight));
+
+            for (int targetX = 0; targetX < targetWidth; targetX++) {
+                final int fromX = (int) ((long) targetX * width / targetWidth);
+                final int toX = Math.max(fromX + 1, (int) ((long) (targetX + 1) * width / targetWidth));
+
+                double rSum = 0.0;
+                double gSum = 0.0;
+                double bSum = 0.0;
+                for (int y = fromY; y < toY; y++) {
+                    for (int pixelIndex = y * width + fromX; pixelIndex < y * width + toX; pixelIndex++) {
+                        rSum += pixelData.getR(pixelIndex);
+                        gSum += pixelData.getG(pixelIndex);
+                        bSum += pixelData.getB(pixelIndex);
+                    }
+                }
+
+                final double amountAreaPixelsInv = 1.0 / ((toY - fromY) * (toX - fromX));
+                final double rValue = rSum * amountAreaPixelsInv;
+                final double gValue = gSum * amountAreaPixelsInv;
+                final double bValue = bSum * amountAreaPixelsInv;
+
+                final int targetPixelIndex = targetY * targetWidth + targetX;
+                targetPixelData.setRGB(targetPixelIndex, rValue, gValue, bValue);
+                targetPixelData.setIntensity(targetPixelIndex, Cie.YtoLstar2Fast(Cie.sRGBtoYluminance(rValue, gValue, bValue) * channelMaxValueInv));
+            }
+        });
+
+        return cancelled.getAsBoolean() ? null : downsampledImage;
+    }
+
+    /**
+     * An image sharing the pixel data of the loaded file, unaffected by later loads, which replace the pixel data.
+     * Must be called with the lock held.
+     */
+    private RawFloatImage createView() {
+        final RawFloatImage view = new RawFloatImage();
+        view.width = width;
+        view.height = height;
+        view.pixelData = pixelData;
+        view.storageMode = storageMode;
+        view.cieAccuracy = cieAccuracy;
+        view.channelMaxValue = channelMaxValue;
+        view.intensityMinValue = intensityMinValue;
+        view.intensityMaxValue = intensityMaxValue;
+        view.renderPool = renderPool;
+        return view;
+    }
+
+    /**
+     * Renders the whole image into an image owned by this image, allocated at the first call after a file is loaded.
+     *
+     * @return the rendered image, or null if no file is loaded
+     */
+    public BufferedImage getImage(ToneCurve toneCurve) {
+        if (!isValid()) {
+            return null;
+        }
+
+        if (image == null) {
+            image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        }
+
+        final long startTime = System.nanoTime();
+        createRenderContext(toneCurve).render(image, renderPool, () -> false);
+        lastRenderNanos = System.nanoTime() - startTime;
+
+        return image;
+    }
+
+    /**
+     * Renders into the target image, leaving the image returned by {@link #getImage(ToneCurve)} untouched.
+     * The pixels are written straight into the raster of the target, which must be as large as the render context and
+     * of type {@link BufferedImage#TYPE_INT_RGB} or {@link BufferedImage#TYPE_INT_ARGB}.
+     * Safe to call from a background thread with a render context created on the thread that loads files.
+     *
+     * @return true if the target image was completely rendered, false if the render was cancelled
+     */
+    public boolean renderImage(RenderContext renderContext, BufferedImage targetImage, BooleanSupplier cancelled) {
+        return renderContext.render(targetImage, renderPool, cancelled);
+    }
+
+    public RenderContext createRenderContext(ToneCurve toneCurve) {
+        return new RenderContext(pixelData, width, height, channelMaxValue, intensityMaxValue, toneCurve);
+    }
+
+    /**
+     * @return the time, in nanoseconds, the latest call to {@link #getImage(ToneCurve)} took
+     */
+    public long getLastRenderNanos() {
+        return lastRenderNanos;
+    }
+
+    /**
+     * @return the amount of threads used to render images
+     */
+    public int getRenderParallelism() {
+        return renderPool.getParallelism();
+    }
+
+    /**
+     * Sets the amount of threads used to render images. Defaults to the parallelism of the common fork join pool.
+     * <p>
+     * Renders in flight finish on the previous pool. It is not shut down, that would reject the subtasks of those
+     * renders, its idle threads end by themselves and the pool is then garbage collected.
+     */
+    public void setRenderParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Render parallelism must be at least 1 but was " + parallelism);
+        }
+
+        renderPool = new ForkJoinPool(parallelism);
+    }
+
+    private double clamp(double minValue, double maxValue, double value) {
+        return Math.max(minValue, Math.min(value, maxValue));
+    }
+
+    public double getIntensityMinValue() {
+        return intensityMinValue;
+    }
+
+    public double getIntensityMaxValue() {
+        return intensityMaxValue;
+    }
+
+    /**
+     * A histogram of the L* intensity of the pixels, with values in the included range only.
+     * <p>
+     * Derived from a fine grained base histogram calculated when the file is loaded, so asking for another
+     * amount of boxes or another range never touches the pixels. The values of each base box are split over the boxes
+     * it overlaps. The histogram is an estimate as long as the base histogram is, see {@link Histogram.Mode#PROGRESSIVE}.
+     * With histogram mode {@link Histogram.Mode#EXACT}, or a range so narrow that the base boxes are wider than the
+     * boxes, the histogram is calculated from the exact pixel values instead, see {@link #getExactIntensityHistogram(int, Range)}.
+     *
+     * @param includedRange normalized intensity range, or null for all intensities
+     */
+    public synchronized Histogram getIntensityHistogram(int amountBoxes, Range includedRange) {
+        if ((intensityHistogram == null)
+                || (intensityHistogram.getAmountBoxes() != amountBoxes)
+                || (includedRange != null && !includedRange.equals(intensityHistogramRange))
+                || (includedRange != intensityHistogramRange)) {
+            if (isDerivable(amountBoxes, includedRange)) {
+                intensityHistogram = baseIntensityHistogram.rebin(amountBoxes, getHistogramMinValue(includedRange), getHistogramMaxValue(includedRange),
+                        intensityValue -> (includedRange == null) || includedRange.isInRange(intensityValue / intensityMaxValue));
+            } else {
+                intensityHistogram = getExactIntensityHistogram(amountBoxes, includedRange);
+            }
+        }
+
+        intensityHistogramRange = includedRange;
+
+        return intensityHistogram;
+    }
+
+    /**
+     * A histogram of the L* intensity of the pixels, calculated from the exact pixel values.
+     *
+     * @param includedRange normalized intensity range, or null for all intensities
+     */
+    public Histogram getExactIntensityHistogram(int amountBoxes, Range includedRange) {
+        return Histogram.create(amountBoxes, getHistogramMinValue(includedRange), getHistogramMaxValue(includedRange),
+                width * height,
+                this::getIntensityValue,
+                intensityValue -> (includedRange == null) || includedRange.isInRange(intensityValue / intensityMaxValue));
+    }
+
+    /**
+     * A histogram of the L* intensity of the pixels after the tone curve is applied, with values in the included range only.
+     * <p>
+     * The output intensity of a pixel only depends on its input intensity. The histogram is derived by pushing the
+     * boxes of the fine grained base histogram through the tone curve, in time proportional to the amount of base boxes,
+     * not the amount of pixels. With histogram mode {@link Histogram.Mode#EXACT}, or an output range so narrow that the
+     * base boxes are wider than the boxes, every pixel is pushed through the tone curve instead,
+     * see {@link #getExactIntensityHistogram(int, ToneCurve, Range)}.
+     *
+     * @param includedRange normalized output intensity range, or null for all intensities
+     */
+    public synchronized Histogram getIntensityHistogram(int amountBoxes, ToneCurve toneCurve, Range includedRange) {
+        if (!isDerivable(amountBoxes, includedRange)) {
+            return getExactIntensityHistogram(amountBoxes, toneCurve, includedRange);
+        }
+
+        final int amountBaseBoxes = baseIntensityHistogram.getAmountBoxes();
+        if (histogramTransferInput.length != amountBaseBoxes) {
+            histogramTransferInput = new double[amountBaseBoxes];
+            histogramTransferOutput = new double[amountBaseBoxes];
+        }
+
+        // All base box centers go through the tone curve in one batch
+        final double intensityMaxValueInv = 1.0 / intensityMaxValue;
+        baseIntensityHistogram.getBoxCenterValues(histogramTransferInput);
+        for (int boxNr = 0; boxNr < amountBaseBoxes; boxNr++) {
+            histogramTransferInput[boxNr] *= intensityMaxValueInv;
+        }
+        toneCurve.getValues(histogramTransferInput, histogramTransferOutput, 0, amountBaseBoxes);
+        for (int boxNr = 0; boxNr < amountBaseBoxes; boxNr++) {
+            histogramTransferOutput[boxNr] *= intensityMaxValue;
+        }
+
+        return baseIntensityHistogram.rebin(amountBoxes, getHistogramMinValue(includedRange), getHistogramMaxValue(includedRange),
+                histogramTransferOutput,
+                outputIntensityValue -> (includedRange == null) || includedRange.isInRange(outputIntensityValue / intensityMaxValue));
+    }
+
+    /**
+     * A histogram of the L* intensity of the pixels after the tone curve is applied, calculated from the exact pixel values.
+     *
+     * @param includedRange normalized output intensity range, or null for all intensities
+     */
+    public Histogram getExactIntensityHistogram(int amountBoxes, ToneCurve toneCurve, Range includedRange) {
+        final double intensityMaxValueInv = 1.0 / intensityMaxValue;
+
+        // Let the calling thread bring the curve up to date before the histogram threads start evaluating it
+        toneCurve.getValue(0.0);
+
+        return Histogram.create(amountBoxes, getHistogramMinValue(includedRange), getHistogramMaxValue(includedRange),
+                width * height,
+                pixelIndex -> toneCurve.getValue(getIntensityValue(pixelIndex) * intensityMaxValueInv) * intensityMaxValue,
+                outputIntensityValue -> (includedRange == null) || includedRange.isInRange(outputIntensityValue / intensityMaxValue));
+    }
+
+    /**
+     * @return true if a histogram with the amount of boxes over the range can be derived from the base histogram
+     * without the comb of rounded counts that splitting base boxes over many narrower boxes gives
+     */
+    private boolean isDerivable(int amountBoxes, Range includedRange) {
+        return (histogramMode != Histogram.Mode.EXACT)
+                && (baseIntensityHistogram != null)
+                && baseIntensityHistogram.isFinerThan(amountBoxes, getHistogramMinValue(includedRange), getHistogramMaxValue(includedRange));
+    }
+
+    private double getHistogramMinValue(Range includedRange) {
+        return (includedRange == null) ? 0.0 : includedRange.getMin() * intensityMaxValue;
+    }
+
+    private double getHistogramMaxValue(Range includedRange) {
+        return (includedRange == null) ? intensityMaxValue : includedRange.getMax() * intensityMaxValue;
+    }
+
+    /**
+     * Decodes interleaved R, G, B samples into the channel arrays.
+     * The region is split into slices that are decoded in parallel, each slice with one bulk read from the mapped file.
+     * <p>
+     * While the samples are at hand each slice also stores the (not yet normalized) pixel luminance in
+     * the intensity array and finds its channel max value. The slice max values are merged into the region max value.
+     *
+     * @return the max channel value in the decoded region
+     */
+    private static double decodePixels(FloatBuffer samples, PixelData pixelData, int firstPixelIndex, int amountPixels) {
+        final int amountSlices = (amountPixels + SLICE_PIXELS - 1) / SLICE_PIXELS;
+
+        return IntStream.range(0, amountSlices).parallel().mapToDouble(sliceIndex -> {
+            final int sliceStart = sliceIndex * SLICE_PIXELS;
+            final int slicePixels = Math.min(SLICE_PIXELS, amountPixels - sliceStart);
+            final float[] sliceSamples = new float[slicePixels * 3];
+
+            // Absolute bulk get, does not touch the buffer position and is safe to share between threads
+            samples.get(sliceStart * 3, sliceSamples);
+
+            double sliceChannelMax = -(Double.MAX_VALUE - 1);
+            int sampleIndex = 0;
+            for (int pixelIndex = firstPixelIndex + sliceStart; pixelIndex < firstPixelIndex + sliceStart + slicePixels; pixelIndex++) {
+                final double rValue = sliceSamples[sampleIndex++];
+                final double gValue = sliceSamples[sampleIndex++];
+                final double bValue = sliceSamples[sampleIndex++];
+
+                pixelData.setRGB(pixelIndex, rValue, gValue, bValue);
+                pixelData.setIntensity(pixelIndex, Cie.sRGBtoYluminance(rValue, gValue, bValue));
+
+                sliceChannelMax = Math.max(sliceChannelMax, Math.max(rValue, Math.max(gValue, bValue)));
+            }
+
+            return sliceChannelMax;
+        }).reduce(-(Double.MAX_VALUE - 1), Math::max);
+    }
+
+    /**
+     * Turns the luminance values stored by {@link #decodePixels(FloatBuffer, PixelData, int, int)} into L* intensities, now that the
+     * channel max value is known, and finds the min and max intensity values.
+     * Only the intensity array is visited, the channel arrays are not read again.
+     */
+    private void calculateIntensities() {
+        final int amountPixels = width * height;
+        final int amountSlices = (amountPixels + SLICE_PIXELS - 1) / SLICE_PIXELS;
+        final double channelMaxValueInv = 1.0 / channelMaxValue;
+
+        final double[] intensityMinMax = IntStream.range(0, amountSlices).parallel().mapToObj(sliceIndex -> {
+            final int sliceStart = sliceIndex * SLICE_PIXELS;
+            final int sliceEnd = Math.min(sliceStart + SLICE_PIXELS, amountPixels);
+
+            double sliceIntensityMin = Double.MAX_VALUE;
+            double sliceIntensityMax = -(Double.MAX_VALUE - 1);
+            for (int pixelIndex = sliceStart; pixelIndex < sliceEnd; pixelIndex++) {
+                final double pixelIntensity = Cie.YtoLstar2(pixelData.getIntensity(pixelIndex) * channelMaxValueInv, cieAccuracy);
+                pixelData.setIntensity(pixelIndex, pixelIntensity);
+                sliceIntensityMin = Math.min(sliceIntensityMin, pixelIntensity);
+                sliceIntensityMax = Math.max(sliceIntensityMax, pixelIntensity);
+            }
+
+            return new double[]{sliceIntensityMin, sliceIntensityMax};
+        }).reduce(new double[]{Double.MAX_VALUE, -(Double.MAX_VALUE - 1)},
+                (minMax1, minMax2) -> new double[]{Math.min(minMax1[0], minMax2[0]), Math.max(minMax1[1], minMax2[1])});
+
+        this.intensityMinValue = intensityMinMax[0];
+        this.intensityMaxValue = intensityMinMax[1];
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new EOFException("Unexpected end of raw image file.");
+            }
+        }
+    }
+
+    /**
+     * @return the pixel data throughput, in bytes per second, of the latest file load
+     */
+    public double getLoadBytesPerSecond() {
+        return loadBytesPerSecond;
+    }
+
+    double getIntensityValue(int pixelIndex) {
+        return pixelData.getIntensity(pixelIndex);
+    }
+
+    public double getIntensityValue(int x, int y) {
+        if ((x < 0) || (x >= width) || (y < 0) || (y >= height)) {
+            System.err.println("Can't get pixel intensity outside image bounds {x:0-" + (width - 1) + ", y:0-" + (height - 1) + "}. Requested {x:" + x + ", y:" + y + "}");
+            x = Math.max(0, Math.min(x, width - 1));
+            y = Math.max(0, Math.min(x, height - 1));
+        }
+
+        return getIntensityValue(y * width + x);
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public PixelData.StorageMode getStorageMode() {
+        return pixelData.getStorageMode();
+    }
+
+    /**
+     * Sets the storage mode used by {@link #loadFile(File)} and {@link #loadFile(String)}.
+     */
+    public void setStorageMode(PixelData.StorageMode storageMode) {
+        this.storageMode = storageMode;
+    }
+
+    public Cie.Accuracy getCieAccuracy() {
+        return cieAccuracy;
+    }
+
+    /**
+     * Sets the accuracy of the CIE conversions used when full resolution intensities are calculated for a loaded file.
+     * The proxy and downsampled copies always use {@link Cie.Accuracy#FAST}.
+     */
+    public void setCieAccuracy(Cie.Accuracy cieAccuracy) {
+        this.cieAccuracy = cieAccuracy;
+    }
+
+    public Histogram.Mode getHistogramMode() {
+        return histogramMode;
+    }
+
+    /**
+     * Sets how intensity histograms are calculated, derived from the base histogram or from the exact pixel values.
+     * Whether the base histogram is estimated first is decided when a file is loaded.
+     */
+    public synchronized void setHistogramMode(Histogram.Mode histogramMode) {
+        this.histogramMode = histogramMode;
+        this.intensityHistogram = null;
+    }
+
+    public int getHistogramSampleSize() {
+        return histogramSampleSize;
+    }
+
+    /**
+     * Sets the amount of pixels sampled for the estimated base histogram in histogram mode {@link Histogram.Mode#PROGRESSIVE}.
+     * Images with less than twice as many pixels always get an exact base histogram.
+     */
+    public void setHistogramSampleSize(int histogramSampleSize) {
+        if (histogramSampleSize < 1) {
+            throw new IllegalArgumentException("Histogram sample size must be at least 1 but was " + histogramSampleSize);
+        }
+
+        this.histogramSampleSize = histogramSampleSize;
+    }
+
+    /**
+     * Listens for histogram changes not caused by a call on the image, like an exact histogram replacing an estimate.
+     * Listeners are notified on a background thread.
+     */
+    public interface HistogramChangedListener {
+        void histogramChanged();
+    }
+
+    private void notifyHistogramChangedListeners() {
+        for (final HistogramChangedListener histogramChangedListener : histogramChangedListeners) {
+            histogramChangedListener.histogramChanged();
+        }
+    }
+
+    public void addHistogramChangedListener(HistogramChangedListener listener) {
+        histogramChangedListeners.add(listener);
+    }
+
+    public boolean removeHistogramChangedListener(HistogramChangedListener listener) {
+        return histogramChangedListeners.remove(listener);
+    }
+
+    public double[] getPixel(int x, int y) {
+        final int pixelIndex = y * width + x;
+        return new double[]{pixelData.getR(pixelIndex), pixelData.getG(pixelIndex), pixelData.getB(pixelIndex)};
+    }
+
+    /**
+     * @return the ARGB value of the pixel with the channels scaled to 8 bits, like {@link ToneCurve#IDENTITY} renders it
+     */
+    public int getPixelARGB(int x, int y) {
+        return getPixelARGB(x, y, ToneCurve.IDENTITY);
+    }
+
+    /**
+     * The ARGB value the pixel renders to with the tone curve, calculated for this pixel only.
+     * Allocates nothing, so it can be called on every mouse event.
+     */
+    public int getPixelARGB(int x, int y, ToneCurve toneCurve) {
+        return RenderContext.getPixelARGB(pixelData, y * width + x, 256.0 / channelMaxValue, intensityMaxValue, 1.0 / intensityMaxValue,
+                (toneCurve == ToneCurve.IDENTITY) ? null : toneCurve);
+    }
+}
@@ -0,0 +1,196 @@
+package se.cha;
+
+import se.cha.function.ToneCurve;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Everything needed to render a raw image with a tone curve, captured once per render.
+ * <p>
+ * The L* intensity of every pixel is calculated when the image is loaded. The original luminance Y is derived
+ * from the stored L* with {@link Cie#LstarToY2(double)}, a cube and no {@link Math#pow(double, double)},
+ * so the per pixel work is a curve lookup, one more L* to Y conversion and the scaling of the channels.
+ */
+public class RenderContext {
+
+    private static final int MIN_PIXELS_PER_TASK = 64 * 1024;
+
+    private final PixelData pixelData;
+    private final int width;
+    private final int height;
+    private final ToneCurve toneCurve;
+    private final boolean identity;
+
+    private final double conversionConstant;
+    private final double intensityMaxValue;
+    private final double intensityMaxValueInv;
+
+    // Heap allocation of the render in progress, summed over the calling thread and all render pool threads
+    private final AtomicLong allocatedBytes = new AtomicLong();
+    private volatile long lastRenderAllocatedBytes = 0L;
+
+    RenderContext(PixelData pixelData, int width, int height, double channelMaxValue, double intensityMaxValue, ToneCurve toneCurve) {
+        this.pixelData = pixelData;
+        this.width = width;
+        this.height = height;
+        this.toneCurve = toneCurve;
+        this.identity = (toneCurve == ToneCurve.IDENTITY);
+
+        this.conversionConstant = 256.0 / channelMaxValue;
+        this.intensityMaxValue = intensityMaxValue;
+        this.intensityMaxValueInv = 1.0 / intensityMaxValue;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Renders all pixels as ARGB values into the pixel array, splitting the image in row bands rendered on the pool.
+     */
+    public void render(int[] pixels, ForkJoinPool renderPool) {
+        render(pixels, renderPool, () -> false);
+    }
+
+    /**
+     * Renders all pixels straight into the int raster of the target image, without intermediate pixel arrays.
+     *
+     * @return true if all pixels were rendered, false if the render was cancelled
+     */
+    public boolean render(BufferedImage targetImage, ForkJoinPool renderPool, BooleanSupplier cancelled) {
+        if ((targetImage.getType() != BufferedImage.TYPE_INT_RGB) && (targetImage.getType() != BufferedImage.TYPE_INT_ARGB)) {
+            throw new IllegalArgumentException("Can only render into int RGB or ARGB images but image type was " + targetImage.getType());
+        }
+
+        if ((targetImage.getWidth() != width) || (targetImage.getHeight() != height)) {
+            throw new IllegalArgumentException("Can't render a " + width + "x" + height + " image into a " + targetImage.getWidth() + "x" + targetImage.getHeight() + " image");
+        }
+
+        final int[] pixels = ((DataBufferInt) targetImage.getRaster().getDataBuffer()).getData();
+        return render(pixels, renderPool, cancelled);
+    }
+
+    /**
+     * Renders all pixels as ARGB values into the pixel array, splitting the image in row bands rendered on the pool.
+     * Row bands not yet started when the render is cancelled are skipped.
+     *
+     * @return true if all pixels were rendered, false if the render was cancelled
+     */
+    public boolean render(int[] pixels, ForkJoinPool renderPool, BooleanSupplier cancelled) {
+        final long startAllocatedBytes = AllocationMeter.getCurrentThreadAllocatedBytes();
+
+        // Let the calling thread bring the curve up to date before the render threads start evaluating it
+        toneCurve.getValue(0.0);
+        final RenderTask renderTask = new RenderTask(0, height, pixels, cancelled);
+
+        // The calling thread is metered up to here, it may run tasks itself while waiting and they meter themselves
+        allocatedBytes.set(AllocationMeter.getCurrentThreadAllocatedBytes() - startAllocatedBytes);
+        renderPool.invoke(renderTask);
+        lastRenderAllocatedBytes = allocatedBytes.get();
+
+        return !cancelled.getAsBoolean();
+    }
+
+    /**
+     * The heap allocation of the latest render with this context, by the calling thread and by every render pool
+     * thread that worked on it, see {@link AllocationMeter}. Only meaningful when renders with this context are not
+     * run at the same time.
+     *
+     * @return the allocated bytes, 0 if allocation can't be measured
+     */
+    public long getLastRenderAllocatedBytes() {
+        return lastRenderAllocatedBytes;
+    }
+
+    /**
+     * Renders the pixels of the rows in range [fromRow, toRow).
+     */
+    void renderRows(int fromRow, int toRow, int[] pixels) {
+        final int toPixelIndex = toRow * width;
+        for (int pixelIndex = fromRow * width; pixelIndex < toPixelIndex; pixelIndex++) {
+            pixels[pixelIndex] = getPixelARGB(pixelIndex);
+        }
+    }
+
+    public int getPixelARGB(int pixelIndex) {
+        return getPixelARGB(pixelData, pixelIndex, conversionConstant, intensityMaxValue, intensityMaxValueInv, identity ? null : toneCurve);
+    }
+
+    /**
+     * The rendered ARGB value of a single pixel, without a render context, so picking a pixel allocates nothing.
+     *
+     * @param toneCurve the tone curve, or null to keep the channels exactly like {@link ToneCurve#IDENTITY} does
+     */
+    static int getPixelARGB(PixelData pixelData, int pixelIndex, double conversionConstant, double intensityMaxValue, double intensityMaxValueInv, ToneCurve toneCurve) {
+        // The identity curve keeps the channels exactly, without rounding through the L* conversions
+        final double pixelIntensityFactor = (toneCurve == null) ? 1.0
+                : getPixelIntensityFactor(pixelData.getIntensity(pixelIndex), intensityMaxValue, intensityMaxValueInv, toneCurve);
+
+        // Perceptive linear scaling of RGB channels according to pixel intensity (using CIE 1931 Lstar scale)
+        final int rValue = (int) clamp(0.0, 255.0, pixelIntensityFactor * pixelData.getR(pixelIndex) * conversionConstant);
+        final int gValue = (int) clamp(0.0, 255.0, pixelIntensityFactor * pixelData.getG(pixelIndex) * conversionConstant);
+        final int bValue = (int) clamp(0.0, 255.0, pixelIntensityFactor * pixelData.getB(pixelIndex) * conversionConstant);
+
+        return 0xFF000000 | (rValue << 16) | (gValue << 8) | (bValue << 0);
+    }
+
+    private static double getPixelIntensityFactor(double originalLstarIntensity, double intensityMaxValue, double intensityMaxValueInv, ToneCurve toneCurve) {
+        final double originalYluminance = Cie.LstarToY2(originalLstarIntensity);
+        final double newNormalizedLstarIntensity = toneCurve.getValue(originalLstarIntensity * intensityMaxValueInv);
+        final double newYLuminance = Cie.LstarToY2(newNormalizedLstarIntensity * intensityMaxValue);
+
+        return newYLuminance / originalYluminance;
+    }
+
+    private static double clamp(double minValue, double maxValue, double value) {
+        return Math.max(minValue, Math.min(value, maxValue));
+    }
+
+    /**
+     * Splits a band of image rows in halves until the bands are small enough to render directly.
+     */
+    private class RenderTask extends RecursiveAction {
+        private final int fromRow;
+        private final int toRow;
+        private final int[] pixels;
+        private final BooleanSupplier cancelled;
+
+        RenderTask(int fromRow, int toRow, int[] pixels, BooleanSupplier cancelled) {
+            this.fromRow = fromRow;
+            this.toRow = toRow;
+            this.pixels = pixels;
+            this.cancelled = cancelled;
+        }
+
+        @Override
+        protected void compute() {
+            if (cancelled.getAsBoolean()) {
+                return;
+            }
+
+            final int minRowsPerTask = Math.max(1, MIN_PIXELS_PER_TASK / Math.max(1, width));
+
+            // Only the own work of the task is metered, the halves meter themselves on whatever thread runs them
+            final long startAllocatedBytes = AllocationMeter.getCurrentThreadAllocatedBytes();
+            if ((toRow - fromRow) <= minRowsPerTask) {
+                renderRows(fromRow, toRow, pixels);
+                allocatedBytes.addAndGet(AllocationMeter.getCurrentThreadAllocatedBytes() - startAllocatedBytes);
+            } else {
+                final int middleRow = (fromRow + toRow) >>> 1;
+                final RenderTask firstHalf = new RenderTask(fromRow, middleRow, pixels, cancelled);
+                final RenderTask secondHalf = new RenderTask(middleRow, toRow, pixels, cancelled);
+                allocatedBytes.addAndGet(AllocationMeter.getCurrentThreadAllocatedBytes() - startAllocatedBytes);
+                invokeAll(firstHalf, secondHalf);
+            }
+        }
+    }
+}
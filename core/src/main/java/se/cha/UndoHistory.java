@@ -0,0 +1,71 @@
+package se.cha;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A bounded list of immutable states to step back and forth through. Recording a state after stepping back
+ * drops the states that could have been stepped forward to, and the oldest states are dropped beyond the maximum size.
+ */
+public class UndoHistory<T> {
+
+    private final int maxSize;
+    private final List<T> states = new ArrayList<>();
+    private int currentIndex = -1;
+
+    public UndoHistory(int maxSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Undo history must hold at least 1 state but max size was " + maxSize);
+        }
+
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Records the state as the current state, unless it equals the current state.
+     */
+    public void record(T state) {
+        if ((currentIndex >= 0) && states.get(currentIndex).equals(state)) {
+            return;
+        }
+
+        states.subList(currentIndex + 1, states.size()).clear();
+        states.add(state);
+        if (states.size() > maxSize) {
+            states.remove(0);
+        }
+        currentIndex = states.size() - 1;
+    }
+
+    /**
+     * @return the state before the current state, which becomes the current state, or null if there is none
+     */
+    public T undo() {
+        if (!canUndo()) {
+            return null;
+        }
+
+        currentIndex--;
+        return states.get(currentIndex);
+    }
+
+    /**
+     * @return the state after the current state, which becomes the current state, or null if there is none
+     */
+    public T redo() {
+        if (!canRedo()) {
+            return null;
+        }
+
+        currentIndex++;
+        return states.get(currentIndex);
+    }
+
+    public boolean canUndo() {
+        return currentIndex > 0;
+    }
+
+    public boolean canRedo() {
+        return currentIndex < (states.size() - 1);
+    }
+}
@@ -0,0 +1,12 @@
+package se.cha.dependency;
+
+/**
+ * Something derived products depend on, either a {@link Source} set from the outside or another {@link Product}.
+ */
+public interface Dependency {
+
+    /**
+     * @return a number that increases whenever the value, or the value the dependency would compute, changes
+     */
+    long getVersion();
+}
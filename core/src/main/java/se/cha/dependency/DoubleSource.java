@@ -0,0 +1,31 @@
+package se.cha.dependency;
+
+/**
+ * A {@link Source} of a primitive double, for inputs set on every mouse event, like a hovered intensity.
+ * Setting a value never boxes it. NaN is a value like any other, so setting NaN again keeps the version.
+ */
+public class DoubleSource implements Dependency {
+
+    private double value;
+    private long version = 0;
+
+    public DoubleSource(double initialValue) {
+        this.value = initialValue;
+    }
+
+    public double get() {
+        return value;
+    }
+
+    public void set(double newValue) {
+        if (Double.compare(newValue, value) != 0) {
+            value = newValue;
+            version++;
+        }
+    }
+
+    @Override
+    public long getVersion() {
+        return version;
+    }
+}
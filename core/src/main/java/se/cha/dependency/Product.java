@@ -0,0 +1,55 @@
+package se.cha.dependency;
+
+import java.util.function.Supplier;
+
+/**
+ * A value derived from a fixed set of inputs, computed lazily when asked for and only again when an input has changed.
+ * <p>
+ * The version of a product is the sum of the versions of its inputs, so it is known without computing anything and
+ * changes as soon as any input, however far upstream, changes. Products are not thread safe, they are meant to be
+ * used on the event dispatch thread.
+ */
+public class Product<T> implements Dependency {
+
+    private final Supplier<T> computation;
+    private final Dependency[] inputs;
+
+    private T value = null;
+    private long computedVersion = -1;
+
+    /**
+     * @param computation computes the value, it may reuse and return the same object every time
+     * @param inputs      everything the computation reads that may change
+     */
+    public Product(Supplier<T> computation, Dependency... inputs) {
+        this.computation = computation;
+        this.inputs = inputs.clone();
+    }
+
+    /**
+     * @return the value, computed first if any input has changed since it was last computed
+     */
+    public T get() {
+        final long version = getVersion();
+        if (version != computedVersion) {
+            value = computation.get();
+            computedVersion = version;
+        }
+
+        return value;
+    }
+
+    public boolean isUpToDate() {
+        return getVersion() == computedVersion;
+    }
+
+    @Override
+    public long getVersion() {
+        long version = 0;
+        for (Dependency input : inputs) {
+            version += input.getVersion();
+        }
+
+        return version;
+    }
+}
@@ -0,0 +1,57 @@
+package se.cha.dependency;
+
+import java.util.Objects;
+import java.util.function.BiPredicate;
+
+/**
+ * An input value of derived products, like a display size or the current tone curve.
+ * <p>
+ * Setting a value equivalent to the current value keeps the version, so the products depending on it stay up to date.
+ * Sources are not thread safe, they are meant to be set and read on the event dispatch thread.
+ */
+public class Source<T> implements Dependency {
+
+    private final BiPredicate<T, T> equivalence;
+    private T value;
+    private long version = 0;
+
+    public Source(T initialValue) {
+        this(initialValue, Objects::equals);
+    }
+
+    /**
+     * @param equivalence tells if two non null values are the same for the products depending on them
+     */
+    public Source(T initialValue, BiPredicate<T, T> equivalence) {
+        this.value = initialValue;
+        this.equivalence = equivalence;
+    }
+
+    public T get() {
+        return value;
+    }
+
+    public void set(T newValue) {
+        if (newValue == value) {
+            return;
+        }
+
+        final boolean equivalent = (newValue != null) && (value != null) && equivalence.test(value, newValue);
+        value = newValue;
+        if (!equivalent) {
+            version++;
+        }
+    }
+
+    /**
+     * Marks the value as changed, for values that change in place, like the pixels of a loaded image.
+     */
+    public void changed() {
+        version++;
+    }
+
+    @Override
+    public long getVersion() {
+        return version;
+    }
+}
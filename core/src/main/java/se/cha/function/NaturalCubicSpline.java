@@ -0,0 +1,153 @@
+package se.cha.function;
+
+import java.util.Arrays;
+
+/**
+ * Natural cubic spline through a set of points, with zero curvature at the first and the last point.
+ * <p>
+ * The spline is solved with the same tridiagonal algorithm, and in the same floating point operation order, as the
+ * commons-math {@code SplineInterpolator}, and evaluated with the same Horner scheme as its polynomials, so the values
+ * are identical. The knot, coefficient and solver arrays are kept and solved again in place when the points change,
+ * so neither solving nor evaluating allocates as long as the amount of points does not grow.
+ */
+public class NaturalCubicSpline {
+
+    private int amountSegments = 0;
+
+    // Segment i covers [knots[i], knots[i + 1]], with value a + b·t + c·t² + d·t³ for t = x - knots[i]
+    // and the coefficients a, b, c, d at coefficients[4·i] to coefficients[4·i + 3]
+    private double[] knots = new double[0];
+    private double[] coefficients = new double[0];
+
+    // Solver work arrays
+    private double[] h = new double[0];
+    private double[] mu = new double[0];
+    private double[] z = new double[0];
+    private double[] c = new double[0];
+
+    /**
+     * Solves the spline through the first amount points of the x and y values.
+     *
+     * @param xValues strictly increasing x values
+     */
+    public void interpolate(double[] xValues, double[] yValues, int amountPoints) {
+        if (amountPoints < 3) {
+            throw new IllegalArgumentException("A spline needs at least 3 points but got " + amountPoints);
+        }
+        for (int i = 1; i < amountPoints; i++) {
+            if (xValues[i] <= xValues[i - 1]) {
+                throw new IllegalArgumentException("Spline x values must be strictly increasing but x[" + (i - 1) + "] = " + xValues[i - 1] + " and x[" + i + "] = " + xValues[i]);
+            }
+        }
+
+        final int n = amountPoints - 1;
+        ensureCapacity(amountPoints);
+        amountSegments = n;
+        System.arraycopy(xValues, 0, knots, 0, amountPoints);
+
+        final double[] x = xValues;
+        final double[] y = yValues;
+
+        for (int i = 0; i < n; i++) {
+            h[i] = x[i + 1] - x[i];
+        }
+
+        mu[0] = 0.0;
+        z[0] = 0.0;
+        for (int i = 1; i < n; i++) {
+            final double g = 2.0 * (x[i + 1] - x[i - 1]) - h[i - 1] * mu[i - 1];
+            mu[i] = h[i] / g;
+            z[i] = (3.0 * (y[i + 1] * h[i - 1] - y[i] * (x[i + 1] - x[i - 1]) + y[i - 1] * h[i]) / (h[i - 1] * h[i]) - h[i - 1] * z[i - 1]) / g;
+        }
+
+        z[n] = 0.0;
+        c[n] = 0.0;
+        for (int j = n - 1; j >= 0; j--) {
+            c[j] = z[j] - mu[j] * c[j + 1];
+
+            final int coefficientIndex = 4 * j;
+            coefficients[coefficientIndex] = y[j];
+            coefficients[coefficientIndex + 1] = (y[j + 1] - y[j]) / h[j] - h[j] * (c[j + 1] + 2.0 * c[j]) / 3.0;
+            coefficients[coefficientIndex + 2] = c[j];
+            coefficients[coefficientIndex + 3] = (c[j + 1] - c[j]) / (3.0 * h[j]);
+        }
+    }
+
+    private void ensureCapacity(int amountPoints) {
+        if (knots.length < amountPoints) {
+            knots = new double[amountPoints];
+            coefficients = new double[4 * (amountPoints - 1)];
+            h = new double[amountPoints - 1];
+            mu = new double[amountPoints - 1];
+            z = new double[amountPoints];
+            c = new double[amountPoints];
+        }
+    }
+
+    public double getMinX() {
+        return knots[0];
+    }
+
+    public double getMaxX() {
+        return knots[amountSegments];
+    }
+
+    /**
+     * @param x a value within the knot range
+     */
+    public double getValue(double x) {
+        return getSegmentValue(findSegment(x), x);
+    }
+
+    /**
+     * Evaluates the spline for the x values in the index range [from, to), which must be within the knot range,
+     * into the same indices of the out array. The out array may be the x values array.
+     * <p>
+     * For increasing x values the segments are walked in order, any decrease falls back to a binary search.
+     */
+    public void getValues(double[] xs, double[] out, int from, int to) {
+        int segment = 0;
+        for (int i = from; i < to; i++) {
+            final double x = xs[i];
+            segment = walkToSegment(segment, x);
+            out[i] = getSegmentValue(segment, x);
+        }
+    }
+
+    /**
+     * @return the segment of x, searched for from the segment of the previous x
+     */
+    int walkToSegment(int segment, double x) {
+        if (x < knots[segment]) {
+            return findSegment(x);
+        }
+
+        while ((segment < amountSegments - 1) && (x >= knots[segment + 1])) {
+            segment++;
+        }
+        return segment;
+    }
+
+    /**
+     * @return the segment of x, picked like the commons-math {@code PolynomialSplineFunction} does
+     */
+    private int findSegment(double x) {
+        int segment = Arrays.binarySearch(knots, 0, amountSegments + 1, x);
+        if (segment < 0) {
+            segment = -segment - 2;
+        }
+
+        return Math.max(0, Math.min(segment, amountSegments - 1));
+    }
+
+    double getSegmentValue(int segment, double x) {
+        final double t = x - knots[segment];
+        final int coefficientIndex = 4 * segment;
+
+        double value = coefficients[coefficientIndex + 3];
+        value = t * value + coefficients[coefficientIndex + 2];
+        value = t * value + coefficients[coefficientIndex + 1];
+        value = t * value + coefficients[coefficientIndex];
+        return value;
+    }
+}
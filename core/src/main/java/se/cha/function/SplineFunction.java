@@ -0,0 +1,236 @@
+package se.cha.function;
+
+import lombok.EqualsAndHashCode;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * This is a spline function curve f(x).
+ * With x in the definition range (0.0, 1.0) and the value of f in the range (0.0, 1.0).
+ * <p>
+ * The curve is a {@link NaturalCubicSpline} through the control points. When a point changes the spline is solved
+ * again in place, the next time the function is evaluated, so dragging a point does not allocate.
+ */
+public class SplineFunction implements Point.PointChangedListener, ToneCurve {
+
+    private final List<Point> points = new ArrayList<>();
+    private final List<FunctionChangedListener> listeners = new ArrayList<>();
+
+    private final NaturalCubicSpline spline = new NaturalCubicSpline();
+    private boolean splineUpToDate = false;
+    private double[] xValues = new double[0];
+    private double[] yValues = new double[0];
+
+    public SplineFunction() {
+        reset();
+    }
+
+    public void reset() {
+        final List<Point> points = new ArrayList<>();
+        // 3 default control points
+        points.add(new Point(0.00, 0.00, this));
+        points.add(new Point(0.50, 0.50, this));
+        points.add(new Point(1.00, 1.00, this));
+
+        replacePoints(points);
+    }
+
+    public void addPoint(Point point) {
+        points.add(point);
+        point.addPointChangedListener(this);
+        Collections.sort(this.points);
+        splineUpToDate = false;
+        notifyFunctionChangedListeners();
+    }
+
+    public void removePoint(Point point) {
+        if (points.size() > 3) {
+            points.remove(point);
+            point.removePointChangedListener(this);
+            splineUpToDate = false;
+            notifyFunctionChangedListeners();
+        } else {
+            throw new IllegalArgumentException("You need to keep at least 3 control points.");
+        }
+    }
+
+    public void addPoints(List<Point> points) {
+        this.points.addAll(points);
+        points.forEach(p -> p.addPointChangedListener(this));
+        Collections.sort(this.points);
+        splineUpToDate = false;
+        notifyFunctionChangedListeners();
+    }
+
+    public Point getFirstPoint() {
+        return points.get(0);
+    }
+
+    public Point getLastPoint() {
+        return points.get(points.size() - 1);
+    }
+
+    public List<Point> getPoints() {
+        return Collections.unmodifiableList(points);
+    }
+
+    /**
+     * @return the current control points, as an immutable snapshot that later point changes don't affect
+     */
+    public Snapshot getSnapshot() {
+        final double[] snapshotXValues = new double[points.size()];
+        final double[] snapshotYValues = new double[points.size()];
+        for (int i = 0; i < points.size(); i++) {
+            snapshotXValues[i] = points.get(i).getX();
+            snapshotYValues[i] = points.get(i).getY();
+        }
+
+        return new Snapshot(snapshotXValues, snapshotYValues);
+    }
+
+    /**
+     * Replaces the control points with new points at the positions of the snapshot.
+     */
+    public void restoreSnapshot(Snapshot snapshot) {
+        final List<Point> snapshotPoints = new ArrayList<>(snapshot.getAmountPoints());
+        for (int i = 0; i < snapshot.getAmountPoints(); i++) {
+            snapshotPoints.add(new Point(snapshot.getX(i), snapshot.getY(i)));
+        }
+
+        replacePoints(snapshotPoints);
+    }
+
+    public void replacePoints(List<Point> points) {
+        if (points.size() < 3) {
+            throw new IllegalArgumentException("You need to supply at least 3 control points.");
+        }
+        this.points.forEach(p -> p.removePointChangedListener(this));
+        this.points.clear();
+        splineUpToDate = false;
+        this.points.addAll(points);
+        this.points.forEach(p -> p.addPointChangedListener(this));
+        Collections.sort(this.points);
+        splineUpToDate = false;
+        notifyFunctionChangedListeners();
+    }
+
+    @Override
+    public double getValue(double x) {
+        updateSpline();
+
+        return spline.getValue(clamp(x, spline.getMinX(), spline.getMaxX()));
+    }
+
+    /**
+     * Evaluates the function for the x values in the index range [from, to) into the same indices of the out array.
+     * The out array may be the x values array.
+     * <p>
+     * For increasing x values the spline segments are walked in order, any decrease falls back to a binary search.
+     * Never allocates, once the spline is up to date.
+     */
+    @Override
+    public void getValues(double[] xs, double[] out, int from, int to) {
+        updateSpline();
+
+        final double minX = spline.getMinX();
+        final double maxX = spline.getMaxX();
+        int segment = 0;
+        for (int i = from; i < to; i++) {
+            final double x = clamp(xs[i], minX, maxX);
+            segment = spline.walkToSegment(segment, x);
+            out[i] = spline.getSegmentValue(segment, x);
+        }
+    }
+
+    /**
+     * Float variant of {@link #getValues(double[], double[], int, int)}, evaluated in double precision.
+     */
+    public void getValues(float[] xs, float[] out, int from, int to) {
+        updateSpline();
+
+        final double minX = spline.getMinX();
+        final double maxX = spline.getMaxX();
+        int segment = 0;
+        for (int i = from; i < to; i++) {
+            final double x = clamp(xs[i], minX, maxX);
+            segment = spline.walkToSegment(segment, x);
+            out[i] = (float) spline.getSegmentValue(segment, x);
+        }
+    }
+
+    private void updateSpline() {
+        if (!splineUpToDate) {
+            final int amountPoints = points.size();
+            if (xValues.length < amountPoints) {
+                xValues = new double[amountPoints];
+                yValues = new double[amountPoints];
+            }
+
+            for (int i = 0; i < amountPoints; i++) {
+                xValues[i] = points.get(i).getX();
+                yValues[i] = points.get(i).getY();
+            }
+
+            spline.interpolate(xValues, yValues, amountPoints);
+            splineUpToDate = true;
+        }
+    }
+
+    private double clamp(double value, double min, double max) {
+        return Math.max(Math.min(value, max), min);
+    }
+
+    @Override
+    public void pointChanged(Point point) {
+        splineUpToDate = false;
+        notifyFunctionChangedListeners();
+    }
+
+    private void notifyFunctionChangedListeners() {
+        for (FunctionChangedListener listener : listeners) {
+            listener.functionChanged();
+        }
+    }
+
+    public void addFunctionChangedListener(FunctionChangedListener listener) {
+        if (!listeners.contains(listener)) {
+            listeners.add(listener);
+        }
+    }
+
+    public boolean removeFunctionChangedListener(FunctionChangedListener listener) {
+        return listeners.remove(listener);
+    }
+
+    /**
+     * Immutable control point positions of a function, see {@link #getSnapshot()}.
+     */
+    @EqualsAndHashCode
+    public static final class Snapshot {
+        private final double[] xValues;
+        private final double[] yValues;
+
+        private Snapshot(double[] xValues, double[] yValues) {
+            this.xValues = xValues;
+            this.yValues = yValues;
+        }
+
+        public int getAmountPoints() {
+            return xValues.length;
+        }
+
+        public double getX(int index) {
+            return xValues[index];
+        }
+
+        public double getY(int index) {
+            return yValues[index];
+        }
+    }
+
+    public interface FunctionChangedListener {
+        void functionChanged();
+    }
+}
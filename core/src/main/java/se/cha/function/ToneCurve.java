@@ -0,0 +1,26 @@
+package se.cha.function;
+
+/**
+ * A tone response curve mapping a normalized input intensity to a normalized output intensity,
+ * both in the range (0.0, 1.0).
+ */
+public interface ToneCurve {
+
+    /**
+     * The curve that keeps every intensity, rendering with it reproduces the original image.
+     */
+    ToneCurve IDENTITY = x -> x;
+
+    double getValue(double x);
+
+    /**
+     * Evaluates the curve for the x values in the index range [from, to) into the same indices of the out array.
+     * The out array may be the x values array, so overrides must read each x value before writing its out index.
+     * Curves that can evaluate a batch faster than value by value override this.
+     */
+    default void getValues(double[] xs, double[] out, int from, int to) {
+        for (int i = from; i < to; i++) {
+            out[i] = getValue(xs[i]);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package se.cha;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class CieTest {
+
+    @Test
+    public void cieLstarConversionZero() {
+        final double Y1 = 100.0 * Cie.sRGBtoYluminance(0, 0, 0);
+        final double lstar = Cie.YtoLstar2(Y1);
+        final double Y2 = Cie.LstarToY2(lstar);
+
+        Assert.assertEquals(Y1, Y2, 0.001);
+    }
+
+    @Test
+    public void cieLstarConversionOne() {
+        final double Y1 = 100.0 * Cie.sRGBtoYluminance(1.0, 1.0, 1.0);
+        final double lstar = Cie.YtoLstar2(Y1);
+        final double Y2 = Cie.LstarToY2(lstar);
+
+        Assert.assertEquals(Y1, Y2, 0.001);
+    }
+
+    @Test
+    public void cieLstarConversionRange() {
+        final double deltaRGB = 0.05;
+        double rgb = 0.0;
+        for (int i = 0; rgb < 1.0; i++) {
+            rgb = i * deltaRGB;
+
+            final double Y1 = 100.0 * Cie.sRGBtoYluminance(rgb, rgb, rgb);
+            final double lstar = Cie.YtoLstar2(Y1);
+            final double Y2 = Cie.LstarToY2(lstar);
+
+            Assert.assertEquals(Y1, Y2, 0.001);
+        }
+    }
+
+    @Test
+    public void fastCubeRootWithinErrorBound() {
+        for (double exponent = -30.0; exponent <= 30.0; exponent += 0.0001) {
+            final double value = Math.pow(10.0, exponent);
+            final double exact = Math.cbrt(value);
+
+            Assert.assertEquals(exact, Cie.cubeRootFast(value), exact * Cie.FAST_CUBE_ROOT_MAX_RELATIVE_ERROR);
+        }
+    }
+
+    @Test
+    public void fastLstarWithinErrorBound() {
+        final int amountSteps = 1_000_000;
+        for (int i = 0; i <= amountSteps; i++) {
+            final double Y = 100.0 * i / amountSteps;
+
+            Assert.assertEquals(Cie.YtoLstar2(Y), Cie.YtoLstar2Fast(Y), 1.2e-4);
+            Assert.assertEquals(Cie.YtoLstar2(Y), Cie.YtoLstar2(Y, Cie.Accuracy.FAST), 1.2e-4);
+            Assert.assertEquals(Cie.YtoLstar2(Y), Cie.YtoLstar2(Y, Cie.Accuracy.EXACT), 0.0);
+        }
+    }
+
+    @Test
+    public void fastSRGBtoLinearRGBWithinErrorBound() {
+        final int amountSteps = 1_000_000;
+        for (int i = 0; i <= amountSteps; i++) {
+            final double colorChannel = 1.0 * i / amountSteps;
+
+            Assert.assertEquals(Cie.sRGBtoLinearRGB(colorChannel), Cie.sRGBtoLinearRGBFast(colorChannel), Cie.FAST_SRGB_MAX_ERROR);
+            Assert.assertEquals(Cie.sRGBtoLinearRGB(colorChannel), Cie.sRGBtoLinearRGB(colorChannel, Cie.Accuracy.EXACT), 0.0);
+        }
+
+        Assert.assertEquals(Cie.sRGBtoLinearRGB(2.5), Cie.sRGBtoLinearRGBFast(2.5), 0.0);
+    }
+}
@@ -0,0 +1,110 @@
+package se.cha;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+
+public class HistogramTest {
+
+    @Test
+    public void parallelHistogramEqualsSerialHistogram() {
+        final Random random = new Random(4711L);
+        // Values outside [min, max] end up in the first and last box
+        final double[] values = random.doubles(1_000_003, -5.0, 105.0).toArray();
+
+        final Histogram serialHistogram = new Histogram(317, 0.0, 100.0);
+        for (double value : values) {
+            if (value < 90.0) {
+                serialHistogram.addValue(value);
+            }
+        }
+
+        final Histogram parallelHistogram = Histogram.create(317, 0.0, 100.0, values.length, valueIndex -> values[valueIndex], value -> value < 90.0);
+
+        Assert.assertEquals(serialHistogram.getAmountBoxes(), parallelHistogram.getAmountBoxes());
+        Assert.assertEquals(serialHistogram.getMaxCount(), parallelHistogram.getMaxCount());
+        for (int boxNr = 0; boxNr < serialHistogram.getAmountBoxes(); boxNr++) {
+            Assert.assertEquals(serialHistogram.getCount(boxNr), parallelHistogram.getCount(boxNr));
+            Assert.assertEquals(serialHistogram.getValueRGB(boxNr), parallelHistogram.getValueRGB(boxNr), 0.0);
+        }
+    }
+
+    @Test
+    public void emptyParallelHistogramHasNoCounts() {
+        final Histogram histogram = Histogram.create(10, 0.0, 1.0, 0, valueIndex -> 0.0, value -> true);
+
+        Assert.assertEquals(0, histogram.getMaxCount());
+        for (int boxNr = 0; boxNr < histogram.getAmountBoxes(); boxNr++) {
+            Assert.assertEquals(0, histogram.getCount(boxNr));
+        }
+    }
+
+    @Test
+    public void rebinMovesBoxesWithinNewBoxesWhole() {
+        final Histogram histogram = new Histogram(8, 0.0, 8.0);
+        for (int value = 0; value < 8; value++) {
+            histogram.addValues(value + 0.25, value + 1);
+        }
+
+        final Histogram rebinnedHistogram = histogram.rebin(2, 2.0, 6.0, value -> (value >= 2.0) && (value <= 6.0));
+
+        // Boxes with center 2.5 and 3.5, then 4.5 and 5.5
+        Assert.assertEquals(3 + 4, rebinnedHistogram.getCount(0));
+        Assert.assertEquals(5 + 6, rebinnedHistogram.getCount(1));
+        Assert.assertEquals(11, rebinnedHistogram.getMaxCount());
+    }
+
+    @Test
+    public void rebinSplitsBoxesOverlappingNewBoxes() {
+        // Uniform, 1000 values in every box of width 1/64
+        final Histogram histogram = new Histogram(64 * 100, 0.0, 100.0);
+        for (int boxNr = 0; boxNr < histogram.getAmountBoxes(); boxNr++) {
+            histogram.addValues(histogram.getBoxCenterValue(boxNr), 1000);
+        }
+
+        // New boxes 1.3 boxes wide, by box center they would alternately get one and two whole boxes
+        final double newBoxWidth = 1.3 / 64.0;
+        final Histogram rebinnedHistogram = histogram.rebin(100, 50.0, 50.0 + 100 * newBoxWidth, value -> (value >= 50.0) && (value <= 50.0 + 100 * newBoxWidth));
+
+        Assert.assertTrue(histogram.isFinerThan(100, 50.0, 50.0 + 100 * newBoxWidth));
+        for (int boxNr = 0; boxNr < rebinnedHistogram.getAmountBoxes(); boxNr++) {
+            Assert.assertEquals(1300, rebinnedHistogram.getCount(boxNr), 1);
+        }
+    }
+
+    @Test
+    public void rebinKeepsCountsOutsideNewRange() {
+        final Histogram histogram = new Histogram(10, 0.0, 10.0);
+        histogram.addValues(0.5, 3);
+        histogram.addValues(4.5, 5);
+        histogram.addValues(9.5, 7);
+
+        final Histogram rebinnedHistogram = histogram.rebin(4, 3.0, 7.0, value -> true);
+
+        Assert.assertEquals(3, rebinnedHistogram.getCount(0));
+        Assert.assertEquals(5, rebinnedHistogram.getCount(1));
+        Assert.assertEquals(7, rebinnedHistogram.getCount(3));
+    }
+
+    @Test
+    public void estimatedHistogramIsWithinErrorEstimateOfExactHistogram() {
+        final Random random = new Random(17L);
+        final double[] values = random.doubles(2_000_000).map(value -> value * value).toArray();
+
+        final Histogram exactHistogram = Histogram.create(20, 0.0, 1.0, values.length, valueIndex -> values[valueIndex], value -> true);
+        final Histogram estimatedHistogram = Histogram.createEstimate(20, 0.0, 1.0, values.length, 16, valueIndex -> values[valueIndex], value -> true);
+
+        Assert.assertFalse(exactHistogram.isEstimate());
+        Assert.assertTrue(estimatedHistogram.isEstimate());
+        Assert.assertEquals(0.0, exactHistogram.getRelativeStandardError(), 0.0);
+
+        final double relativeStandardError = estimatedHistogram.getRelativeStandardError();
+        Assert.assertTrue(relativeStandardError > 0.0);
+        // Five standard errors of the fullest box
+        Assert.assertEquals(exactHistogram.getMaxCount(), estimatedHistogram.getMaxCount(), 5.0 * relativeStandardError * exactHistogram.getMaxCount());
+        for (int boxNr = 0; boxNr < exactHistogram.getAmountBoxes(); boxNr++) {
+            Assert.assertEquals(exactHistogram.getValueRGB(boxNr), estimatedHistogram.getValueRGB(boxNr), 0.02);
+        }
+    }
+}
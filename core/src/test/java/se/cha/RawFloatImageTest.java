@@ -0,0 +1,526 @@
+package se.cha;
+
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import se.cha.dependency.DoubleSource;
+import se.cha.function.Point;
+import se.cha.function.SplineFunction;
+import se.cha.function.ToneCurve;
+import se.cha.function.ToneCurveLut;
+
+import java.awt.image.BufferedImage;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class RawFloatImageTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void loadFileDecodesSameValuesAsStreamReading() throws IOException {
+        // More pixels than one decode slice, and a width that does not divide the slice size
+        final File file = writeRandomImage(321, 241, 4711L);
+
+        final RawFloatImage rawFloatImage = new RawFloatImage();
+        rawFloatImage.loadFile(file);
+
+        Assert.assertEquals(321, rawFloatImage.getWidth());
+        Assert.assertEquals(241, rawFloatImage.getHeight());
+
+        try (DataInputStream dis = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            dis.readInt();
+            dis.readInt();
+            final int width = dis.readInt();
+            final int height = dis.readInt();
+
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    final double[] pixel = rawFloatImage.getPixel(x, y);
+                    Assert.assertEquals(dis.readFloat(), pixel[0], 0.0);
+                    Assert.assertEquals(dis.readFloat(), pixel[1], 0.0);
+                    Assert.assertEquals(dis.readFloat(), pixel[2], 0.0);
+                }
+            }
+        }
+
+        Assert.assertTrue(rawFloatImage.getLoadBytesPerSecond() > 0.0);
+    }
+
+    @Test
+    public void loadFileCalculatesIntensitiesAndExtremeValues() throws IOException {
+        final File file = writeRandomImage(300, 250, 42L);
+
+        final RawFloatImage rawFloatImage = new RawFloatImage();
+        rawFloatImage.loadFile(file);
+
+        double channelMax = -Double.MAX_VALUE;
+        for (int y = 0; y < rawFloatImage.getHeight(); y++) {
+            for (int x = 0; x < rawFloatImage.getWidth(); x++) {
+                final double[] pixel = rawFloatImage.getPixel(x, y);
+                channelMax = Math.max(channelMax, Math.max(pixel[0], Math.max(pixel[1], pixel[2])));
+            }
+        }
+
+        double intensityMin = Double.MAX_VALUE;
+        double intensityMax = -Double.MAX_VALUE;
+        for (int y = 0; y < rawFloatImage.getHeight(); y++) {
+            for (int x = 0; x < rawFloatImage.getWidth(); x++) {
+                final double[] pixel = rawFloatImage.getPixel(x, y);
+                final double expectedIntensity = Cie.YtoLstar2(Cie.sRGBtoYluminance(pixel[0] / channelMax, pixel[1] / channelMax, pixel[2] / channelMax));
+                Assert.assertEquals(expectedIntensity, rawFloatImage.getIntensityValue(x, y), 1.0e-9);
+
+                intensityMin = Math.min(intensityMin, expectedIntensity);
+                intensityMax = Math.max(intensityMax, expectedIntensity);
+            }
+        }
+
+        Assert.assertEquals(intensityMin, rawFloatImage.getIntensityMinValue(), 1.0e-9);
+        Assert.assertEquals(intensityMax, rawFloatImage.getIntensityMaxValue(), 1.0e-9);
+    }
+
+    @Test
+    public void floatStorageModeKeepsFileValues() throws IOException {
+        final File file = writeRandomImage(200, 150, 17L);
+
+        final RawFloatImage doubleImage = new RawFloatImage();
+        doubleImage.loadFile(file, PixelData.StorageMode.DOUBLE);
+        final RawFloatImage floatImage = new RawFloatImage();
+        floatImage.loadFile(file, PixelData.StorageMode.FLOAT);
+
+        Assert.assertEquals(PixelData.StorageMode.DOUBLE, doubleImage.getStorageMode());
+        Assert.assertEquals(PixelData.StorageMode.FLOAT, floatImage.getStorageMode());
+
+        for (int y = 0; y < floatImage.getHeight(); y++) {
+            for (int x = 0; x < floatImage.getWidth(); x++) {
+                Assert.assertArrayEquals(doubleImage.getPixel(x, y), floatImage.getPixel(x, y), 0.0);
+                Assert.assertEquals(doubleImage.getIntensityValue(x, y), floatImage.getIntensityValue(x, y), 1.0e-5);
+            }
+        }
+
+        Assert.assertEquals(doubleImage.getIntensityMaxValue(), floatImage.getIntensityMaxValue(), 1.0e-5);
+    }
+
+    @Test
+    public void renderMatchesPerPixelCieConversion() throws IOException {
+        final File file = writeRandomImage(160, 120, 99L);
+        final RawFloatImage rawFloatImage = new RawFloatImage();
+        rawFloatImage.loadFile(file);
+
+        final SplineFunction toneCurve = createToneCurve();
+        final BufferedImage image = rawFloatImage.getImage(toneCurve);
+
+        double channelMax = -Double.MAX_VALUE;
+        for (int y = 0; y < rawFloatImage.getHeight(); y++) {
+            for (int x = 0; x < rawFloatImage.getWidth(); x++) {
+                final double[] pixel = rawFloatImage.getPixel(x, y);
+                channelMax = Math.max(channelMax, Math.max(pixel[0], Math.max(pixel[1], pixel[2])));
+            }
+        }
+
+        final double intensityMax = rawFloatImage.getIntensityMaxValue();
+        for (int y = 0; y < rawFloatImage.getHeight(); y++) {
+            for (int x = 0; x < rawFloatImage.getWidth(); x++) {
+                final double[] pixel = rawFloatImage.getPixel(x, y);
+                final double originalY = Cie.sRGBtoYluminance(pixel[0] / channelMax, pixel[1] / channelMax, pixel[2] / channelMax);
+                final double newLstar = toneCurve.getValue(Cie.YtoLstar2(originalY) / intensityMax) * intensityMax;
+                final double factor = Cie.LstarToY2(newLstar) / originalY;
+
+                final int rgb = image.getRGB(x, y);
+                Assert.assertEquals(Math.min(255.0, factor * pixel[0] * 256.0 / channelMax), (rgb >> 16) & 0xFF, 1.0);
+                Assert.assertEquals(Math.min(255.0, factor * pixel[1] * 256.0 / channelMax), (rgb >> 8) & 0xFF, 1.0);
+                Assert.assertEquals(Math.min(255.0, factor * pixel[2] * 256.0 / channelMax), rgb & 0xFF, 1.0);
+            }
+        }
+    }
+
+    @Test
+    public void renderParallelismCanChangeWhileRendering() throws Exception {
+        // Many small renders, so parallelism changes often fall between the start of a render and its subtasks
+        final File file = writeRandomImage(256, 1024, 11L);
+        final SplineFunction toneCurve = createToneCurve();
+
+        final RawFloatImage rawFloatImage = new RawFloatImage();
+        rawFloatImage.setRenderParallelism(2);
+        rawFloatImage.loadFile(file);
+        final int width = rawFloatImage.getWidth();
+        final int height = rawFloatImage.getHeight();
+        final int[] expectedPixels = rawFloatImage.getImage(toneCurve).getRGB(0, 0, width, height, null, 0, width);
+
+        final RenderContext renderContext = rawFloatImage.createRenderContext(toneCurve);
+        final BufferedImage target = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        final AtomicReference<Throwable> renderFailure = new AtomicReference<>();
+        final Thread renderThread = new Thread(() -> {
+            try {
+                for (int render = 0; render < 100; render++) {
+                    Assert.assertTrue(rawFloatImage.renderImage(renderContext, target, () -> false));
+                }
+            } catch (Throwable t) {
+                renderFailure.set(t);
+            }
+        });
+
+        renderThread.start();
+        int parallelism = 1;
+        while (renderThread.isAlive()) {
+            rawFloatImage.setRenderParallelism(parallelism);
+            parallelism = (parallelism % 4) + 1;
+            Thread.sleep(0, 100_000);
+        }
+        renderThread.join();
+
+        Assert.assertNull(renderFailure.get());
+        Assert.assertArrayEquals(expectedPixels, target.getRGB(0, 0, width, height, null, 0, width));
+    }
+
+    @Test
+    public void pickedPixelsMatchRenderAndAllocateNothing() throws IOException {
+        Assume.assumeTrue(AllocationMeter.isSupported());
+
+        final RawFloatImage rawFloatImage = new RawFloatImage();
+        rawFloatImage.loadFile(writeRandomImage(64, 48, 29L));
+        final ToneCurveLut toneCurve = new ToneCurveLut(createToneCurve());
+        final BufferedImage image = rawFloatImage.getImage(toneCurve);
+        for (int y = 0; y < 48; y++) {
+            for (int x = 0; x < 64; x++) {
+                Assert.assertEquals(image.getRGB(x, y), rawFloatImage.getPixelARGB(x, y, toneCurve));
+            }
+        }
+
+        // Like hovering: set the highlight intensity and pick the original and output color of the pixel
+        final DoubleSource highlightIntensitySource = new DoubleSource(Double.NaN);
+        pickPixels(rawFloatImage, toneCurve, highlightIntensitySource);
+        final long startAllocatedBytes = AllocationMeter.getCurrentThreadAllocatedBytes();
+        final long checksum = pickPixels(rawFloatImage, toneCurve, highlightIntensitySource);
+        final long allocatedBytes = AllocationMeter.getCurrentThreadAllocatedBytes() - startAllocatedBytes;
+
+        Assert.assertNotEquals(0L, checksum);
+        // Room for the meter itself, far below a single object per picked pixel
+        Assert.assertTrue("Picking pixels allocated " + allocatedBytes + " bytes", allocatedBytes < 1024);
+    }
+
+    private static long pickPixels(RawFloatImage rawFloatImage, ToneCurve toneCurve, DoubleSource highlightIntensitySource) {
+        long checksum = 0L;
+        for (int pick = 0; pick < 100_000; pick++) {
+            final int x = pick % rawFloatImage.getWidth();
+            final int y = (pick / rawFloatImage.getWidth()) % rawFloatImage.getHeight();
+            highlightIntensitySource.set(rawFloatImage.getIntensityValue(x, y) / rawFloatImage.getIntensityMaxValue());
+            checksum += rawFloatImage.getPixelARGB(x, y) + rawFloatImage.getPixelARGB(x, y, toneCurve);
+        }
+        return checksum;
+    }
+
+    @Test
+    public void steadyStateRenderAllocatesNothingOnAnyThread() throws IOException {
+        Assume.assumeTrue(AllocationMeter.isSupported());
+
+        final RawFloatImage rawFloatImage = new RawFloatImage();
+        rawFloatImage.setRenderParallelism(4);
+        rawFloatImage.loadFile(writeRandomImage(512, 512, 31L));
+        final BufferedImage target = new BufferedImage(512, 512, BufferedImage.TYPE_INT_RGB);
+
+        final RenderContext renderContext = rawFloatImage.createRenderContext(new ToneCurveLut(createToneCurve()));
+        for (int render = 0; render < 20; render++) {
+            Assert.assertTrue(rawFloatImage.renderImage(renderContext, target, () -> false));
+        }
+        // Only the few row band tasks, no per row or per frame arrays
+        Assert.assertTrue("Render allocated " + renderContext.getLastRenderAllocatedBytes() + " bytes",
+                renderContext.getLastRenderAllocatedBytes() < 16 * 1024);
+
+        // Allocation on the render pool threads is included
+        final RenderContext allocatingContext = rawFloatImage.createRenderContext(x -> {
+            allocationSink = new double[16];
+            return x;
+        });
+        Assert.assertTrue(rawFloatImage.renderImage(allocatingContext, target, () -> false));
+        Assert.assertTrue(allocatingContext.getLastRenderAllocatedBytes() > 512L * 512 * 16 * Double.BYTES);
+    }
+
+    private static volatile double[] allocationSink;
+
+    @Test
+    public void identityRenderReproducesOriginalColors() throws IOException {
+        final File file = writeRandomImage(120, 80, 23L);
+
+        final RawFloatImage rawFloatImage = new RawFloatImage();
+        rawFloatImage.loadFile(file);
+        final BufferedImage image = rawFloatImage.getImage(ToneCurve.IDENTITY);
+
+        for (int y = 0; y < rawFloatImage.getHeight(); y++) {
+            for (int x = 0; x < rawFloatImage.getWidth(); x++) {
+                Assert.assertEquals(rawFloatImage.getPixelARGB(x, y), image.getRGB(x, y));
+            }
+        }
+    }
+
+    @Test
+    public void renderIsIndependentOfParallelism() throws IOException {
+        final File file = writeRandomImage(640, 480, 7L);
+        final SplineFunction toneCurve = createToneCurve();
+
+        final RawFloatImage serialImage = new RawFloatImage();
+        serialImage.setRenderParallelism(1);
+        serialImage.loadFile(file);
+        final RawFloatImage parallelImage = new RawFloatImage();
+        parallelImage.setRenderParallelism(4);
+        parallelImage.loadFile(file);
+
+        final int width = serialImage.getWidth();
+        final int height = serialImage.getHeight();
+        Assert.assertArrayEquals(
+                serialImage.getImage(toneCurve).getRGB(0, 0, width, height, null, 0, width),
+                parallelImage.getImage(toneCurve).getRGB(0, 0, width, height, null, 0, width));
+    }
+
+    @Test
+    public void proxyIsAreaAverageWithSameIntensityScale() throws IOException {
+        final File file = writeRandomImage(102, 81, 3L);
+        final RawFloatImage rawFloatImage = new RawFloatImage();
+        rawFloatImage.loadFile(file);
+
+        final RawFloatImage proxy = rawFloatImage.getProxy();
+        Assert.assertEquals(25, proxy.getWidth());
+        Assert.assertEquals(20, proxy.getHeight());
+        Assert.assertEquals(rawFloatImage.getIntensityMaxValue(), proxy.getIntensityMaxValue(), 0.0);
+        Assert.assertEquals(Cie.Accuracy.FAST, proxy.getCieAccuracy());
+
+        // Proxy pixel (1, 1) covers source pixels x in [4, 8) and y in [4, 8)
+        final double[] expected = new double[3];
+        for (int y = 4; y < 8; y++) {
+            for (int x = 4; x < 8; x++) {
+                final double[] pixel = rawFloatImage.getPixel(x, y);
+                for (int channel = 0; channel < 3; channel++) {
+                    expected[channel] += pixel[channel] / 16.0;
+                }
+            }
+        }
+        Assert.assertArrayEquals(expected, proxy.getPixel(1, 1), 1.0e-12);
+    }
+
+    @Test
+    public void downsampledImageIsReusedForSameSize() throws IOException {
+        final File file = writeRandomImage(120, 90, 5L);
+        final RawFloatImage rawFloatImage = new RawFloatImage();
+        rawFloatImage.loadFile(file);
+
+        final RawFloatImage fullSizeImage = rawFloatImage.getDownsampledImage(400, 300);
+        Assert.assertEquals(120, fullSizeImage.getWidth());
+        Assert.assertEquals(90, fullSizeImage.getHeight());
+        Assert.assertArrayEquals(rawFloatImage.getPixel(7, 5), fullSizeImage.getPixel(7, 5), 0.0);
+
+        final RawFloatImage downsampledImage = rawFloatImage.getDownsampledImage(40, 30);
+        Assert.assertEquals(40, downsampledImage.getWidth());
+        Assert.assertEquals(30, downsampledImage.getHeight());
+        Assert.assertSame(downsampledImage, rawFloatImage.getDownsampledImage(40, 30));
+        Assert.assertNotSame(downsampledImage, rawFloatImage.getDownsampledImage(60, 45));
+    }
+
+    @Test
+    public void fullSizeImageIsUnaffectedByLaterLoads() throws IOException {
+        final RawFloatImage rawFloatImage = new RawFloatImage();
+        rawFloatImage.loadFile(writeRandomImage(40, 30, 5L));
+        final RawFloatImage fullSizeImage = rawFloatImage.getDownsampledImage(40, 30);
+        final RenderContext renderContext = fullSizeImage.createRenderContext(ToneCurve.IDENTITY);
+        final double[] pixel = fullSizeImage.getPixel(39, 29);
+
+        rawFloatImage.loadFile(writeRandomImage(20, 10, 7L));
+
+        Assert.assertEquals(40, fullSizeImage.getWidth());
+        Assert.assertArrayEquals(pixel, fullSizeImage.getPixel(39, 29), 0.0);
+        final BufferedImage target = new BufferedImage(40, 30, BufferedImage.TYPE_INT_RGB);
+        Assert.assertTrue(fullSizeImage.renderImage(renderContext, target, () -> false));
+    }
+
+    @Test
+    public void cancelledDownsamplingKeepsLatestCopy() throws IOException {
+        final File file = writeRandomImage(120, 90, 5L);
+        final RawFloatImage rawFloatImage = new RawFloatImage();
+        rawFloatImage.loadFile(file);
+
+        // Fits within the 30 x 22 proxy
+        final RawFloatImage downsampledImage = rawFloatImage.getDownsampledImage(20, 15);
+        Assert.assertEquals(20, downsampledImage.getWidth());
+        Assert.assertEquals(15, downsampledImage.getHeight());
+        Assert.assertEquals(rawFloatImage.getIntensityMaxValue(), downsampledImage.getIntensityMaxValue(), 0.0);
+
+        Assert.assertNull(rawFloatImage.getDownsampledImage(40, 30, () -> true));
+        Assert.assertSame(downsampledImage, rawFloatImage.getDownsampledImage(20, 15));
+    }
+
+    @Test
+    public void rebinnedIntensityHistogramIsCloseToExactHistogram() throws IOException {
+        final File file = writeRandomImage(300, 200, 11L);
+        final RawFloatImage rawFloatImage = new RawFloatImage();
+        rawFloatImage.loadFile(file);
+
+        final Range includedRange = new Range(0.25, 0.75);
+        final Histogram histogram = rawFloatImage.getIntensityHistogram(200, includedRange);
+        final Histogram exactHistogram = rawFloatImage.getExactIntensityHistogram(200, includedRange);
+
+        int amountValues = 0;
+        int amountExactValues = 0;
+        for (int boxNr = 0; boxNr < histogram.getAmountBoxes(); boxNr++) {
+            // Only values within a base box of a box edge may end up in a neighbouring box
+            Assert.assertEquals(exactHistogram.getCount(boxNr), histogram.getCount(boxNr), 3.0);
+            amountValues += histogram.getCount(boxNr);
+            amountExactValues += exactHistogram.getCount(boxNr);
+        }
+        Assert.assertEquals(amountExactValues, amountValues, 3.0);
+    }
+
+    @Test
+    public void narrowRangeIntensityHistogramIsExact() throws IOException {
+        final File file = writeRandomImage(300, 200, 11L);
+        final RawFloatImage rawFloatImage = new RawFloatImage();
+        rawFloatImage.loadFile(file);
+
+        // 200 boxes over a thousandth of the intensities, narrower than the base boxes
+        final Range includedRange = new Range(0.5, 0.501);
+        final Histogram histogram = rawFloatImage.getIntensityHistogram(200, includedRange);
+        final Histogram exactHistogram = rawFloatImage.getExactIntensityHistogram(200, includedRange);
+
+        for (int boxNr = 0; boxNr < histogram.getAmountBoxes(); boxNr++) {
+            Assert.assertEquals(exactHistogram.getCount(boxNr), histogram.getCount(boxNr));
+        }
+    }
+
+    @Test
+    public void derivedOutputHistogramIsCloseToExactHistogram() throws IOException {
+        final File file = writeRandomImage(300, 200, 13L);
+        final RawFloatImage rawFloatImage = new RawFloatImage();
+        rawFloatImage.loadFile(file);
+        final SplineFunction toneCurve = createToneCurve();
+
+        final Histogram histogram = rawFloatImage.getIntensityHistogram(100, toneCurve, null);
+        rawFloatImage.setHistogramMode(Histogram.Mode.EXACT);
+        final Histogram exactHistogram = rawFloatImage.getIntensityHistogram(100, toneCurve, null);
+
+        int amountValues = 0;
+        for (int boxNr = 0; boxNr < histogram.getAmountBoxes(); boxNr++) {
+            // The curve stretches no base box over more than a few output box edges
+            Assert.assertEquals(exactHistogram.getCount(boxNr), histogram.getCount(boxNr), 5.0);
+            amountValues += histogram.getCount(boxNr);
+        }
+        Assert.assertEquals(300 * 200, amountValues);
+    }
+
+    @Test
+    public void progressiveHistogramIsReplacedByExactHistogram() throws IOException, InterruptedException {
+        final File file = writeRandomImage(400, 300, 19L);
+        final RawFloatImage rawFloatImage = new RawFloatImage();
+        rawFloatImage.setHistogramMode(Histogram.Mode.PROGRESSIVE);
+        rawFloatImage.setHistogramSampleSize(10_000);
+
+        final CountDownLatch histogramChanged = new CountDownLatch(1);
+        rawFloatImage.addHistogramChangedListener(histogramChanged::countDown);
+        synchronized (rawFloatImage) {
+            // Holding the image lock keeps the exact histogram from being swapped in until the estimate is checked
+            rawFloatImage.loadFile(file);
+            Assert.assertTrue(rawFloatImage.getIntensityHistogram(100, null).isEstimate());
+        }
+
+        Assert.assertTrue(histogramChanged.await(30, TimeUnit.SECONDS));
+        final Histogram histogram = rawFloatImage.getIntensityHistogram(100, null);
+        Assert.assertFalse(histogram.isEstimate());
+
+        final RawFloatImage derivedImage = new RawFloatImage();
+        derivedImage.loadFile(file);
+        final Histogram derivedHistogram = derivedImage.getIntensityHistogram(100, null);
+        for (int boxNr = 0; boxNr < histogram.getAmountBoxes(); boxNr++) {
+            Assert.assertEquals(derivedHistogram.getCount(boxNr), histogram.getCount(boxNr));
+        }
+    }
+
+    @Test
+    public void imageIsValidOnlyWithLoadedFile() throws IOException {
+        final RawFloatImage rawFloatImage = new RawFloatImage();
+        Assert.assertFalse(rawFloatImage.isValid());
+        Assert.assertNull(rawFloatImage.getImage(ToneCurve.IDENTITY));
+
+        rawFloatImage.loadFile(writeRandomImage(30, 20, 5L));
+        Assert.assertTrue(rawFloatImage.isValid());
+        Assert.assertTrue(rawFloatImage.getProxy().isValid());
+        final BufferedImage image = rawFloatImage.getImage(ToneCurve.IDENTITY);
+        Assert.assertEquals(30, image.getWidth());
+        Assert.assertEquals(20, image.getHeight());
+
+        rawFloatImage.clear();
+        Assert.assertFalse(rawFloatImage.isValid());
+    }
+
+    @Test
+    public void failedLoadLeavesImageUnchanged() throws IOException {
+        final RawFloatImage rawFloatImage = new RawFloatImage();
+        rawFloatImage.loadFile(writeRandomImage(30, 20, 5L));
+        final double[] pixel = rawFloatImage.getPixel(3, 4);
+
+        try {
+            rawFloatImage.loadFile(writeTruncatedImage());
+            Assert.fail("Truncated file was loaded");
+        } catch (EOFException e) {
+            // Expected
+        }
+
+        Assert.assertTrue(rawFloatImage.isValid());
+        Assert.assertEquals(30, rawFloatImage.getWidth());
+        Assert.assertEquals(20, rawFloatImage.getHeight());
+        Assert.assertArrayEquals(pixel, rawFloatImage.getPixel(3, 4), 0.0);
+    }
+
+    @Test(expected = EOFException.class)
+    public void loadFileRejectsTruncatedFile() throws IOException {
+        new RawFloatImage().loadFile(writeTruncatedImage());
+    }
+
+    private File writeTruncatedImage() throws IOException {
+        final File file = temporaryFolder.newFile("truncated.fimg");
+        try (DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            dos.writeInt(1);
+            dos.writeInt(0);
+            dos.writeInt(10);
+            dos.writeInt(10);
+            dos.writeFloat(1.0f);
+        }
+
+        return file;
+    }
+
+    private static SplineFunction createToneCurve() {
+        final SplineFunction toneCurve = new SplineFunction();
+        toneCurve.addPoint(new Point(0.2, 0.4));
+        toneCurve.addPoint(new Point(0.7, 0.6));
+        return toneCurve;
+    }
+
+    private File writeRandomImage(int width, int height, long seed) throws IOException {
+        final Random random = new Random(seed);
+        final File file = temporaryFolder.newFile("random_" + width + "x" + height + ".fimg");
+
+        try (DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            dos.writeInt(1);
+            dos.writeInt(0);
+            dos.writeInt(width);
+            dos.writeInt(height);
+
+            for (int pixelIndex = 0; pixelIndex < width * height * 3; pixelIndex++) {
+                dos.writeFloat(random.nextFloat() * 10.0f);
+            }
+        }
+
+        return file;
+    }
+}
@@ -0,0 +1,39 @@
+package se.cha;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class UndoHistoryTest {
+
+    @Test
+    public void undoAndRedoStepThroughRecordedStates() {
+        final UndoHistory<String> history = new UndoHistory<>(10);
+        history.record("a");
+        history.record("b");
+        history.record("b");
+        history.record("c");
+
+        Assert.assertEquals("b", history.undo());
+        Assert.assertEquals("a", history.undo());
+        Assert.assertNull(history.undo());
+        Assert.assertEquals("b", history.redo());
+
+        // Recording after stepping back drops the states ahead
+        history.record("d");
+        Assert.assertFalse(history.canRedo());
+        Assert.assertEquals("b", history.undo());
+        Assert.assertEquals("a", history.undo());
+    }
+
+    @Test
+    public void oldestStatesAreDroppedBeyondMaxSize() {
+        final UndoHistory<Integer> history = new UndoHistory<>(3);
+        for (int state = 0; state < 5; state++) {
+            history.record(state);
+        }
+
+        Assert.assertEquals(3, (int) history.undo());
+        Assert.assertEquals(2, (int) history.undo());
+        Assert.assertFalse(history.canUndo());
+    }
+}
@@ -0,0 +1,92 @@
+package se.cha.dependency;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ProductTest {
+
+    @Test
+    public void productIsOnlyComputedWhenAnInputChanges() {
+        final Source<Integer> a = new Source<>(1);
+        final Source<Integer> b = new Source<>(2);
+        final AtomicInteger computations = new AtomicInteger();
+        final Product<Integer> sum = new Product<>(() -> {
+            computations.incrementAndGet();
+            return a.get() + b.get();
+        }, a, b);
+
+        Assert.assertEquals(0, computations.get());
+        Assert.assertEquals(3, (int) sum.get());
+        Assert.assertEquals(3, (int) sum.get());
+        Assert.assertEquals(1, computations.get());
+
+        b.set(2);
+        Assert.assertTrue(sum.isUpToDate());
+
+        b.set(5);
+        Assert.assertFalse(sum.isUpToDate());
+        Assert.assertEquals(6, (int) sum.get());
+        Assert.assertEquals(2, computations.get());
+    }
+
+    @Test
+    public void changesPropagateThroughProducts() {
+        final Source<Integer> input = new Source<>(1);
+        final Source<Integer> unrelated = new Source<>(0);
+        final AtomicInteger upstreamComputations = new AtomicInteger();
+        final AtomicInteger downstreamComputations = new AtomicInteger();
+        final Product<Integer> doubled = new Product<>(() -> {
+            upstreamComputations.incrementAndGet();
+            return 2 * input.get();
+        }, input);
+        final Product<Integer> plusOne = new Product<>(() -> {
+            downstreamComputations.incrementAndGet();
+            return doubled.get() + unrelated.get() + 1;
+        }, doubled, unrelated);
+
+        Assert.assertEquals(3, (int) plusOne.get());
+
+        unrelated.set(10);
+        Assert.assertEquals(13, (int) plusOne.get());
+        Assert.assertEquals(1, upstreamComputations.get());
+        Assert.assertEquals(2, downstreamComputations.get());
+
+        input.set(4);
+        Assert.assertEquals(19, (int) plusOne.get());
+        Assert.assertEquals(2, upstreamComputations.get());
+        Assert.assertEquals(3, downstreamComputations.get());
+    }
+
+    @Test
+    public void equivalentValuesKeepTheVersion() {
+        final Source<Double> source = new Source<>(1.0, (value1, value2) -> Math.abs(value1 - value2) < 0.1);
+
+        source.set(1.05);
+        Assert.assertEquals(0, source.getVersion());
+        Assert.assertEquals(1.05, source.get(), 0.0);
+
+        source.set(null);
+        Assert.assertEquals(1, source.getVersion());
+
+        source.changed();
+        Assert.assertEquals(2, source.getVersion());
+    }
+
+    @Test
+    public void doubleSourceOnlyChangesVersionForNewValues() {
+        final DoubleSource source = new DoubleSource(Double.NaN);
+
+        source.set(Double.NaN);
+        Assert.assertEquals(0, source.getVersion());
+
+        source.set(0.5);
+        source.set(0.5);
+        Assert.assertEquals(1, source.getVersion());
+        Assert.assertEquals(0.5, source.get(), 0.0);
+
+        source.set(Double.NaN);
+        Assert.assertEquals(2, source.getVersion());
+    }
+}
@@ -0,0 +1,78 @@
+package se.cha.function;
+
+import org.apache.commons.math3.analysis.interpolation.SplineInterpolator;
+import org.apache.commons.math3.analysis.polynomials.PolynomialSplineFunction;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+public class NaturalCubicSplineTest {
+
+    @Test
+    public void valuesAreIdenticalToCommonsMathSpline() {
+        final Random random = new Random(11L);
+        final NaturalCubicSpline spline = new NaturalCubicSpline();
+
+        for (int pointSet = 0; pointSet < 50; pointSet++) {
+            final int amountPoints = 3 + random.nextInt(10);
+            final double[] xValues = random.doubles(amountPoints).sorted().toArray();
+            final double[] yValues = random.doubles(amountPoints).toArray();
+
+            // The same spline object is solved again in place for every point set
+            spline.interpolate(xValues, yValues, amountPoints);
+            assertSameValues(new SplineInterpolator().interpolate(xValues, yValues), spline);
+        }
+    }
+
+    @Test
+    public void movedPointIsSolvedAgainInPlace() {
+        final double[] xValues = {0.0, 0.3, 0.6, 1.0};
+        final double[] yValues = {0.0, 0.5, 0.4, 1.0};
+        final NaturalCubicSpline spline = new NaturalCubicSpline();
+        spline.interpolate(xValues, yValues, 4);
+
+        xValues[1] = 0.2;
+        yValues[1] = 0.7;
+        spline.interpolate(xValues, yValues, 4);
+
+        assertSameValues(new SplineInterpolator().interpolate(xValues, yValues), spline);
+    }
+
+    @Test
+    public void onlyTheFirstAmountPointsAreUsed() {
+        final double[] xValues = {0.0, 0.5, 1.0, 0.2};
+        final double[] yValues = {0.0, 0.2, 1.0, 0.9};
+        final NaturalCubicSpline spline = new NaturalCubicSpline();
+        spline.interpolate(xValues, yValues, 3);
+
+        assertSameValues(new SplineInterpolator().interpolate(Arrays.copyOf(xValues, 3), Arrays.copyOf(yValues, 3)), spline);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsXValuesNotStrictlyIncreasing() {
+        new NaturalCubicSpline().interpolate(new double[]{0.0, 0.5, 0.5, 1.0}, new double[]{0.0, 0.2, 0.3, 1.0}, 4);
+    }
+
+    private static void assertSameValues(PolynomialSplineFunction expectedSpline, NaturalCubicSpline spline) {
+        final double[] knots = expectedSpline.getKnots();
+        final double minX = knots[0];
+        final double maxX = knots[knots.length - 1];
+
+        final double[] xs = new double[1001];
+        for (int i = 0; i < xs.length; i++) {
+            xs[i] = Math.min(maxX, minX + (maxX - minX) * i / (xs.length - 1));
+        }
+        final double[] values = new double[xs.length];
+        spline.getValues(xs, values, 0, xs.length);
+
+        for (int i = 0; i < xs.length; i++) {
+            Assert.assertEquals(expectedSpline.value(xs[i]), spline.getValue(xs[i]), 0.0);
+            Assert.assertEquals(expectedSpline.value(xs[i]), values[i], 0.0);
+        }
+        for (double knot : knots) {
+            Assert.assertEquals(expectedSpline.value(knot), spline.getValue(knot), 0.0);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package se.cha.function;
+
+import org.apache.commons.math3.analysis.interpolation.SplineInterpolator;
+import org.apache.commons.math3.analysis.polynomials.PolynomialSplineFunction;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Random;
+
+public class SplineFunctionTest {
+
+    @Test
+    public void batchValuesEqualSingleValues() {
+        final SplineFunction function = createFunction();
+
+        final double[] xs = new double[1001];
+        for (int i = 0; i < xs.length; i++) {
+            // Also outside the definition range, which is clamped
+            xs[i] = -0.1 + 1.2 * i / (xs.length - 1);
+        }
+        final double[] values = new double[xs.length];
+        function.getValues(xs, values, 10, 990);
+
+        for (int i = 0; i < xs.length; i++) {
+            final double expectedValue = ((i >= 10) && (i < 990)) ? function.getValue(xs[i]) : 0.0;
+            Assert.assertEquals("Value " + i, expectedValue, values[i], 0.0);
+        }
+    }
+
+    @Test
+    public void valuesAreIdenticalToPolynomialSplineValues() {
+        final SplineFunction function = createFunction();
+        final List<Point> points = function.getPoints();
+        final double[] xValues = points.stream().mapToDouble(Point::getX).toArray();
+        final double[] yValues = points.stream().mapToDouble(Point::getY).toArray();
+        final PolynomialSplineFunction spline = new SplineInterpolator().interpolate(xValues, yValues);
+
+        for (int i = 0; i <= 10_000; i++) {
+            final double x = i / 10_000.0;
+            Assert.assertEquals("Value at " + x, spline.value(x), function.getValue(x), 0.0);
+        }
+        for (double knot : xValues) {
+            Assert.assertEquals("Value at knot " + knot, spline.value(knot), function.getValue(knot), 0.0);
+        }
+    }
+
+    @Test
+    public void batchValuesInAnyOrderEqualSingleValues() {
+        final SplineFunction function = createFunction();
+        final Random random = new Random(3L);
+
+        final double[] xs = random.doubles(5000).toArray();
+        final double[] values = new double[xs.length];
+        function.getValues(xs, values, 0, xs.length);
+
+        final float[] floatXs = new float[xs.length];
+        final float[] floatValues = new float[xs.length];
+        for (int i = 0; i < xs.length; i++) {
+            floatXs[i] = (float) xs[i];
+        }
+        function.getValues(floatXs, floatValues, 0, xs.length);
+
+        for (int i = 0; i < xs.length; i++) {
+            Assert.assertEquals(function.getValue(xs[i]), values[i], 0.0);
+            Assert.assertEquals((float) function.getValue(floatXs[i]), floatValues[i], 0.0f);
+        }
+    }
+
+    @Test
+    public void batchValuesIntoTheXValuesArrayEqualSingleValues() {
+        final SplineFunction function = createFunction();
+        final ToneCurve defaultBatchCurve = x -> x * x;
+
+        final double[] xs = new Random(5L).doubles(1000, -0.1, 1.1).toArray();
+        final double[] splineValues = xs.clone();
+        function.getValues(splineValues, splineValues, 0, xs.length);
+        final double[] defaultBatchValues = xs.clone();
+        defaultBatchCurve.getValues(defaultBatchValues, defaultBatchValues, 0, xs.length);
+
+        for (int i = 0; i < xs.length; i++) {
+            Assert.assertEquals(function.getValue(xs[i]), splineValues[i], 0.0);
+            Assert.assertEquals(defaultBatchCurve.getValue(xs[i]), defaultBatchValues[i], 0.0);
+        }
+    }
+
+    @Test
+    public void restoredSnapshotGivesSameValues() {
+        final SplineFunction function = createFunction();
+        final SplineFunction.Snapshot snapshot = function.getSnapshot();
+        final double value = function.getValue(0.42);
+
+        function.getPoints().get(2).set(0.35, 0.9);
+        Assert.assertNotEquals(snapshot, function.getSnapshot());
+        Assert.assertNotEquals(value, function.getValue(0.42), 1.0e-6);
+
+        function.restoreSnapshot(snapshot);
+        Assert.assertEquals(snapshot, function.getSnapshot());
+        Assert.assertEquals(value, function.getValue(0.42), 0.0);
+    }
+
+    static SplineFunction createFunction() {
+        final SplineFunction function = new SplineFunction();
+        function.addPoint(new Point(0.1, 0.4));
+        function.addPoint(new Point(0.3, 0.2));
+        function.addPoint(new Point(0.8, 0.95));
+        return function;
+    }
+}
@@ -0,0 +1,69 @@
+package se.cha.function;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ToneCurveLutTest {
+
+    @Test
+    public void lookupTableMatchesTableEntriesExactly() {
+        final SplineFunction function = new SplineFunction();
+        final ToneCurveLut lut = new ToneCurveLut(function, 257);
+
+        for (int index = 0; index < 257; index++) {
+            final double x = index / 256.0;
+            Assert.assertEquals(function.getValue(x), lut.getValue(x), 1.0e-15);
+        }
+    }
+
+    @Test
+    public void lookupTableErrorIsBelowDocumentedBound() {
+        final SplineFunction function = new SplineFunction();
+        function.addPoint(new Point(0.1, 0.4));
+        function.addPoint(new Point(0.3, 0.2));
+        function.addPoint(new Point(0.8, 0.95));
+
+        final ToneCurveLut lut = new ToneCurveLut(function);
+
+        Assert.assertTrue(lut.getMaximumError(function, 100_003) < 1.0e-5);
+    }
+
+    @Test
+    public void lookupTableClampsInput() {
+        final SplineFunction function = new SplineFunction();
+        final ToneCurveLut lut = new ToneCurveLut(function, 16);
+
+        Assert.assertEquals(lut.getValue(0.0), lut.getValue(-1.0), 0.0);
+        Assert.assertEquals(lut.getValue(1.0), lut.getValue(2.0), 0.0);
+    }
+
+    @Test
+    public void equivalentTablesDifferAtMostByTolerance() {
+        final SplineFunction function = new SplineFunction();
+        final ToneCurveLut lut = new ToneCurveLut(function, 64);
+
+        Assert.assertTrue(lut.isEquivalent(new ToneCurveLut(x -> function.getValue(x) + 1.0e-12, 64), 1.0e-9));
+        Assert.assertFalse(lut.isEquivalent(new ToneCurveLut(x -> function.getValue(x) + 1.0e-6, 64), 1.0e-9));
+        Assert.assertFalse(lut.isEquivalent(new ToneCurveLut(function, 65), 1.0e-9));
+    }
+
+    @Test
+    public void zoomedCurveBakedOverZoomRangeKeepsErrorBound() {
+        final SplineFunction function = new SplineFunction();
+        function.addPoint(new Point(0.3, 0.1));
+        function.addPoint(new Point(0.7, 0.9));
+
+        // The curve squeezed into a narrow zoom range and constant outside it, like a zoomed FunctionPanel
+        final double zoomMin = 0.45;
+        final double zoomMax = 0.5;
+        final ToneCurve zoomedCurve = x -> function.getValue(Math.max(0.0, Math.min((x - zoomMin) / (zoomMax - zoomMin), 1.0)));
+
+        final ToneCurveLut fullRangeLut = new ToneCurveLut(zoomedCurve);
+        final ToneCurveLut zoomRangeLut = new ToneCurveLut(zoomedCurve, ToneCurveLut.DEFAULT_RESOLUTION, zoomMin, zoomMax);
+
+        Assert.assertTrue(fullRangeLut.getMaximumError(zoomedCurve, 100_003) > 1.0e-4);
+        Assert.assertTrue(zoomRangeLut.getMaximumError(zoomedCurve, 100_003) < 1.0e-6);
+        Assert.assertEquals(function.getValue(0.0), zoomRangeLut.getValue(0.1), 0.0);
+        Assert.assertEquals(function.getValue(1.0), zoomRangeLut.getValue(0.9), 0.0);
+    }
+}
@@ -5,19 +5,33 @@ import java.awt.*;
 
 public class ColorPanel extends JPanel {
 
-    private Color color = null;
+    /**
+     * No color shown. Rendered pixels are always opaque, so a fully transparent black never is one.
+     */
+    public static final int NO_COLOR = 0;
+
+    private static final Stroke BORDER_STROKE = new BasicStroke(1.5f);
+
+    private int color = NO_COLOR;
+    // The color last painted, only replaced when another color is painted
+    private Color paintedColor = null;
 
     public ColorPanel(int size) {
         setPreferredSize(new Dimension(size, size));
     }
 
-    public void setColor(Color color) {
-        this.color = color;
-        repaint();
+    /**
+     * @param color packed ARGB color, or {@link #NO_COLOR}
+     */
+    public void setColor(int color) {
+        if (this.color != color) {
+            this.color = color;
+            repaint();
+        }
     }
 
     public void resetColor() {
-        setColor(null);
+        setColor(NO_COLOR);
     }
 
     @Override
@@ -30,13 +44,16 @@ public class ColorPanel extends JPanel {
 
         final int arcWidth = 8;
 
-        if (color != null) {
-            g.setColor(color);
+        if (color != NO_COLOR) {
+            if ((paintedColor == null) || (paintedColor.getRGB() != color)) {
+                paintedColor = new Color(color, true);
+            }
+            g.setColor(paintedColor);
             g.fillRoundRect(0, 0, getWidth() - 1, getHeight() - 1, arcWidth, arcWidth);
         }
 
         final Color borderColor = UIManager.getColor("Button.background");
-        g.setStroke(new BasicStroke(1.5f));
+        g.setStroke(BORDER_STROKE);
         g.setColor(borderColor);
         g.drawRoundRect(0, 0, getWidth() - 1, getHeight() - 1, arcWidth, arcWidth);
         g.setStroke(originalStroke);
@@ -1,7 +1,11 @@
 package se.cha;
 
 import lombok.Value;
+import se.cha.dependency.Product;
+import se.cha.dependency.Source;
 import se.cha.function.SplineFunction;
+import se.cha.function.ToneCurve;
+import se.cha.function.ToneCurveLut;
 
 import javax.imageio.ImageIO;
 import javax.swing.*;
@@ -9,16 +13,19 @@ import java.awt.*;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseListener;
 import java.awt.event.MouseMotionListener;
+import java.awt.geom.Path2D;
 import java.awt.image.BufferedImage;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.List;
 
-public class FunctionPanel extends JPanel implements MouseListener, MouseMotionListener, SplineFunction.FunctionChangedListener {
+public class FunctionPanel extends JPanel implements MouseListener, MouseMotionListener, SplineFunction.FunctionChangedListener, ToneCurve {
 
     private static final double PIXEL_CLOSE_RADIUS = 7.0;
     private static final int CONTROL_POINT_WIDTH = 4;
+    private static final Stroke CURVE_STROKE = new BasicStroke(1.0f, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND);
+    private static final int MAX_UNDO_STATES = 100;
 
     private se.cha.function.Point dragPoint = null;
     private se.cha.function.Point closePointToMousePosition;
@@ -30,16 +37,38 @@ public class FunctionPanel extends JPanel implements MouseListener, MouseMotionL
 
     private final SplineFunction function;
     private BackgroundImageProducer backgroundImageProducer = null;
+    private OverlayPainter overlayPainter = null;
 
     private boolean drawLinearReference = true;
 
     private Range zoomRange = new Range(0.0, 1.0);
 
+    private final Source<SplineFunction> functionSource;
+    private final Source<Range> zoomRangeSource = new Source<>(zoomRange);
+    private final Source<Integer> toneCurveLutResolutionSource = new Source<>(ToneCurveLut.DEFAULT_RESOLUTION);
+    private final Source<Integer> widthSource = new Source<>(0);
+    private final Source<Integer> heightSource = new Source<>(0);
+
+    private final Product<ToneCurveLut> toneCurveLut;
+
+    // Completed edits of the points and the zoom, to step back and forth through
+    private final UndoHistory<CurveState> history = new UndoHistory<>(MAX_UNDO_STATES);
+
+    // Curve geometry in pixels, rebuilt only when the function, the panel size or the zoom changes
+    private final Product<Path2D> curveGeometry;
+    private final Path2D.Float curvePath = new Path2D.Float();
+    private double[] curveXValues = new double[0];
+    private double[] curveYValues = new double[0];
+
     public FunctionPanel(SplineFunction function) {
         super();
 
         this.function = function;
+        this.functionSource = new Source<>(function);
+        this.toneCurveLut = new Product<>(this::createToneCurveLut, functionSource, zoomRangeSource, toneCurveLutResolutionSource);
+        this.curveGeometry = new Product<>(this::createCurvePath, functionSource, zoomRangeSource, widthSource, heightSource);
         function.addFunctionChangedListener(this);
+        history.record(getCurveState());
 
         try {
             final InputStream inputStream = this.getClass().getClassLoader().getResourceAsStream("cross.png");
@@ -61,18 +90,23 @@ public class FunctionPanel extends JPanel implements MouseListener, MouseMotionL
 
     public void addPoint(se.cha.function.Point point) {
         function.addPoint(point);
+        history.record(getCurveState());
     }
 
     public void reset() {
+        // Zoom out first, the function listeners are notified by the reset
+        setZoomRange(null);
         function.reset();
-        zoomRange = null;
+        history.record(getCurveState());
         repaint();
     }
 
     public void removePoint(se.cha.function.Point point) {
         function.removePoint(point);
+        history.record(getCurveState());
     }
 
+    @Override
     public double getValue(double x) {
         if (zoomRange != null) {
             if (x <= zoomRange.getMin()) {
@@ -90,10 +124,79 @@ public class FunctionPanel extends JPanel implements MouseListener, MouseMotionL
         }
     }
 
+    /**
+     * Evaluates the response curve, including any zoom, for a batch of values with one batch call to the function
+     * per run of values inside the zoom range. Every x value is read before its out index is written.
+     */
+    @Override
+    public void getValues(double[] xs, double[] out, int from, int to) {
+        if (zoomRange == null) {
+            function.getValues(xs, out, from, to);
+            return;
+        }
+
+        final double zoomMin = zoomRange.getMin();
+        final double zoomMax = zoomRange.getMax();
+        final double zoomLength = zoomMax - zoomMin;
+        final double firstY = function.getFirstPoint().getY();
+        final double lastY = function.getLastPoint().getY();
+        int i = from;
+        while (i < to) {
+            final double x = xs[i];
+            if (x <= zoomMin) {
+                out[i++] = firstY;
+            } else if (x >= zoomMax) {
+                out[i++] = lastY;
+            } else {
+                final int runStart = i;
+                while (i < to && xs[i] > zoomMin && xs[i] < zoomMax) {
+                    out[i] = (xs[i] - zoomMin) / zoomLength;
+                    i++;
+                }
+                function.getValues(out, out, runStart, i);
+            }
+        }
+    }
+
+    /**
+     * The response curve, including any zoom, baked into a lookup table.
+     * The table is only rebuilt when the function or the zoom has changed since it was last baked.
+     */
+    public ToneCurveLut getToneCurveLut() {
+        return toneCurveLut.get();
+    }
+
+    /**
+     * Bakes the table over the zoom range only, the curve is constant outside it. All entries then fall where the
+     * curve changes, and the table error stays as small as for the unzoomed curve at any zoom.
+     */
+    private ToneCurveLut createToneCurveLut() {
+        if (zoomRange == null) {
+            return new ToneCurveLut(this, toneCurveLutResolutionSource.get());
+        }
+
+        return new ToneCurveLut(this, toneCurveLutResolutionSource.get(), zoomRange.getMin(), zoomRange.getMax());
+    }
+
+    public void setToneCurveLutResolution(int toneCurveLutResolution) {
+        toneCurveLutResolutionSource.set(toneCurveLutResolution);
+    }
+
+    /**
+     * @return true while a control point is being dragged, the function then changes at mouse rate
+     */
+    public boolean isAdjusting() {
+        return dragPoint != null;
+    }
+
     public void setBackgroundImageProducer(BackgroundImageProducer backgroundImageProducer) {
         this.backgroundImageProducer = backgroundImageProducer;
     }
 
+    public void setOverlayPainter(OverlayPainter overlayPainter) {
+        this.overlayPainter = overlayPainter;
+    }
+
     @Override
     public void paintComponent(Graphics g) {
         final Graphics2D graphics2D = (Graphics2D) g;
@@ -101,8 +204,9 @@ public class FunctionPanel extends JPanel implements MouseListener, MouseMotionL
         graphics2D.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
         graphics2D.setRenderingHint(RenderingHints.KEY_STROKE_CONTROL, RenderingHints.VALUE_STROKE_NORMALIZE);
 
-        final int width = graphics2D.getClipBounds().width;
-        final int height = graphics2D.getClipBounds().height;
+        // The clip may only be a part of the panel when just a region is repainted
+        final int width = getWidth();
+        final int height = getHeight();
 
         // Fill canvas
         graphics2D.setColor(Color.GRAY);
@@ -112,7 +216,9 @@ public class FunctionPanel extends JPanel implements MouseListener, MouseMotionL
 
         if (backgroundImageProducer != null) {
             final Image image = backgroundImageProducer.getBackgroundImage(width, height);
-            graphics2D.drawImage(image, 0, 0, width, height, null);
+            if (image != null) {
+                graphics2D.drawImage(image, 0, 0, width, height, null);
+            }
         }
 
         // Draw 1:1 response line
@@ -128,10 +234,8 @@ public class FunctionPanel extends JPanel implements MouseListener, MouseMotionL
         // Draw highlighted position
         graphics2D.setColor(new Color(255, 128, 128, 128));
         drawHighlightPosition(graphics2D, width, height);
-        if ((backgroundImageProducer != null) && (highlightPosition != -Double.MAX_VALUE)) {
-            final double x = highlightPosition;
-            final Image image = backgroundImageProducer.getForegroundImage(width, height, x);
-            graphics2D.drawImage(image, 0, 0, width, height, null);
+        if (overlayPainter != null) {
+            overlayPainter.paintOverlay(graphics2D, width, height);
         }
 
         // Draw spline curve
@@ -229,29 +333,72 @@ public class FunctionPanel extends JPanel implements MouseListener, MouseMotionL
     }
 
     private void drawCurve(Graphics2D graphics2D, int width, int height) {
+        final Stroke stroke = graphics2D.getStroke();
+        graphics2D.setStroke(CURVE_STROKE);
+        graphics2D.draw(getCurvePath(width, height));
+        graphics2D.setStroke(stroke);
+    }
+
+    /**
+     * The curve as a polyline with one vertex per horizontal pixel between the first and the last control point.
+     * The function is evaluated for all vertices in one batch, and only when the curve geometry is out of date.
+     */
+    private Path2D getCurvePath(int width, int height) {
+        // Compared unboxed, so painting at an unchanged size doesn't box the size
+        if (widthSource.get() != width) {
+            widthSource.set(width);
+        }
+        if (heightSource.get() != height) {
+            heightSource.set(height);
+        }
+
+        return curveGeometry.get();
+    }
+
+    private Path2D createCurvePath() {
+        final int width = widthSource.get();
+        final int height = heightSource.get();
         final double minX = function.getFirstPoint().getX();
         final double maxX = function.getLastPoint().getX();
         final int amountSteps = (int) ((maxX - minX) * width);
         final double deltaX = (maxX - minX) / (1.0 * amountSteps);
 
-        final int[] pixelXValues = new int[amountSteps];
-        final int[] pixelYValues = new int[amountSteps];
+        if (curveXValues.length < amountSteps) {
+            curveXValues = new double[amountSteps];
+            curveYValues = new double[amountSteps];
+        }
 
         for (int i = 0; i < amountSteps; i++) {
-            final double x = minX + i * deltaX;
-            final double y = function.getValue(x);
+            curveXValues[i] = minX + i * deltaX;
+        }
+        function.getValues(curveXValues, curveYValues, 0, amountSteps);
 
-            final double pixelX = x * width;
-            final double pixelY = y * height;
+        curvePath.reset();
+        for (int i = 0; i < amountSteps; i++) {
+            final int pixelX = (int) Math.round(curveXValues[i] * width);
+            final int pixelY = height - (int) Math.round(curveYValues[i] * height);
 
-            pixelXValues[i] = (int) Math.round(pixelX);
-            pixelYValues[i] = height - (int) Math.round(pixelY);
+            if (i == 0) {
+                curvePath.moveTo(pixelX, pixelY);
+            } else {
+                curvePath.lineTo(pixelX, pixelY);
+            }
         }
 
-        final Stroke stroke = graphics2D.getStroke();
-        graphics2D.setStroke(new BasicStroke(1.0f, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
-        graphics2D.drawPolyline(pixelXValues, pixelYValues, amountSteps);
-        graphics2D.setStroke(stroke);
+        return curvePath;
+    }
+
+    /**
+     * Repaints only the area of the control point and its highlight halo.
+     */
+    private void repaintControlPoint(se.cha.function.Point point) {
+        if (point != null) {
+            final int pixelX = (int) Math.round(point.getX() * getWidth());
+            final int pixelY = getHeight() - (int) Math.round(point.getY() * getHeight());
+            final int margin = CONTROL_POINT_WIDTH * 2;
+
+            repaint(pixelX - margin, pixelY - margin, 2 * margin + 1, 2 * margin + 1);
+        }
     }
 
     @Override
@@ -329,6 +476,7 @@ public class FunctionPanel extends JPanel implements MouseListener, MouseMotionL
     public void mouseReleased(MouseEvent mouseEvent) {
         if (dragPoint != null) {
             dragPoint = null;
+            history.record(getCurveState());
             repaint();
             notifyFunctionChangedListeners();
         }
@@ -338,14 +486,13 @@ public class FunctionPanel extends JPanel implements MouseListener, MouseMotionL
     public void mouseEntered(MouseEvent mouseEvent) {
         mousePosition = mouseEvent.getPoint();
         notifyCurrentValueListeners();
-        repaint();
     }
 
     @Override
     public void mouseExited(MouseEvent mouseEvent) {
         mousePosition = null;
         notifyCurrentValueListeners();
-        repaint();
+        setClosePointToMousePosition(null);
     }
 
     @Override
@@ -380,10 +527,17 @@ public class FunctionPanel extends JPanel implements MouseListener, MouseMotionL
     @Override
     public void mouseMoved(MouseEvent mouseEvent) {
         mousePosition = mouseEvent.getPoint();
-        closePointToMousePosition = getPixelClosestValidPoint(mousePosition, PIXEL_CLOSE_RADIUS);
+        setClosePointToMousePosition(getPixelClosestValidPoint(mousePosition, PIXEL_CLOSE_RADIUS));
 
         notifyCurrentValueListeners();
-        repaint();
+    }
+
+    private void setClosePointToMousePosition(se.cha.function.Point point) {
+        if (point != closePointToMousePosition) {
+            repaintControlPoint(closePointToMousePosition);
+            repaintControlPoint(point);
+            closePointToMousePosition = point;
+        }
     }
 
     private double clamp(double value, double min, double max) {
@@ -406,19 +560,20 @@ public class FunctionPanel extends JPanel implements MouseListener, MouseMotionL
 
     @Override
     public void functionChanged() {
+        functionSource.changed();
         notifyFunctionChangedListeners();
         repaint();
     }
 
     public void setZoom() {
         if (zoomRange == null) {
-            zoomRange = new Range(function.getFirstPoint().getX(), function.getLastPoint().getX());
+            setZoomRange(new Range(function.getFirstPoint().getX(), function.getLastPoint().getX()));
         } else {
             final double zoomLength = zoomRange.getMax() - zoomRange.getMin();
-            zoomRange = new Range(
+            setZoomRange(new Range(
                     zoomRange.getMin() + zoomLength * function.getFirstPoint().getX(),
                     zoomRange.getMax() - zoomLength * (1.0 - function.getLastPoint().getX())
-            );
+            ));
         }
 
 //        if ((zoomRange.getMin() == 0.0) || (zoomRange.getMax() == 1.0)) {
@@ -436,6 +591,7 @@ public class FunctionPanel extends JPanel implements MouseListener, MouseMotionL
         function.replacePoints(newPoints);
 //        }
 
+        history.record(getCurveState());
         repaint();
     }
 
@@ -448,12 +604,66 @@ public class FunctionPanel extends JPanel implements MouseListener, MouseMotionL
             newPoints.add(new se.cha.function.Point(zoomRange.getMin() + point.getX() * zoomLength, point.getY()));
         }
 
-        zoomRange = null;
+        setZoomRange(null);
         function.replacePoints(newPoints);
 
+        history.record(getCurveState());
         repaint();
     }
 
+    private void setZoomRange(Range zoomRange) {
+        this.zoomRange = zoomRange;
+        zoomRangeSource.set(zoomRange);
+    }
+
+    /**
+     * @return the control points and the zoom, as an immutable snapshot
+     */
+    public CurveState getCurveState() {
+        return new CurveState(function.getSnapshot(), zoomRange);
+    }
+
+    /**
+     * Restores the control points and the zoom of the state, without recording it as an edit.
+     */
+    public void setCurveState(CurveState curveState) {
+        dragPoint = null;
+        closePointToMousePosition = null;
+        setZoomRange(curveState.getZoomRange());
+        function.restoreSnapshot(curveState.getPoints());
+        repaint();
+    }
+
+    /**
+     * Steps back to the state before the latest edit.
+     *
+     * @return false if there was no earlier state
+     */
+    public boolean undo() {
+        final CurveState curveState = history.undo();
+        if (curveState == null) {
+            return false;
+        }
+
+        setCurveState(curveState);
+        return true;
+    }
+
+    /**
+     * Steps forward to the state of the edit undone last.
+     *
+     * @return false if there was no later state
+     */
+    public boolean redo() {
+        final CurveState curveState = history.redo();
+        if (curveState == null) {
+            return false;
+        }
+
+        setCurveState(curveState);
+        return true;
+    }
+
     public boolean isZoomed() {
         return getZoomRange() != null;
     }
@@ -462,6 +672,12 @@ public class FunctionPanel extends JPanel implements MouseListener, MouseMotionL
         return zoomRange;
     }
 
+    @Value
+    public static class CurveState {
+        SplineFunction.Snapshot points;
+        Range zoomRange;
+    }
+
     public interface FunctionChangedListener {
         void functionChanged();
     }
@@ -475,17 +691,17 @@ public class FunctionPanel extends JPanel implements MouseListener, MouseMotionL
             }
 
             final double outputNormalizedIntensity = getValue(originalNormalizedIntensity);
-            final CurrentValueEvent currentValueEvent = new CurrentValueEvent(originalNormalizedIntensity, outputNormalizedIntensity);
 
-            notifyCurrentValueListeners(currentValueEvent);
+            notifyCurrentValueListeners(originalNormalizedIntensity, outputNormalizedIntensity);
         } else {
-            notifyCurrentValueListeners(null);
+            notifyCurrentValueListeners(Double.NaN, Double.NaN);
         }
     }
 
-    private void notifyCurrentValueListeners(CurrentValueEvent event) {
-        for (CurrentValueListener listener : currentValueListeners) {
-            listener.currentValueChanged(event);
+    private void notifyCurrentValueListeners(double inputValue, double outputValue) {
+        // Indexed, so notifying on every mouse event allocates no iterator
+        for (int listenerIndex = 0; listenerIndex < currentValueListeners.size(); listenerIndex++) {
+            currentValueListeners.get(listenerIndex).currentValueChanged(inputValue, outputValue);
         }
     }
 
@@ -498,7 +714,13 @@ public class FunctionPanel extends JPanel implements MouseListener, MouseMotionL
     }
 
     public interface CurrentValueListener {
-        void currentValueChanged(CurrentValueEvent event);
+        /**
+         * Called on every mouse move over the panel, with NaN values when the mouse has left it.
+         *
+         * @param inputValue  the normalized input intensity under the mouse
+         * @param outputValue the normalized output intensity of the curve there
+         */
+        void currentValueChanged(double inputValue, double outputValue);
     }
 
     public void setHighlightPosition(double x) {
@@ -506,14 +728,22 @@ public class FunctionPanel extends JPanel implements MouseListener, MouseMotionL
             throw new IllegalArgumentException("Highlight position most be in range 0.0 to 1.0 (inclusive) but was " + x);
         }
 
+        repaintHighlightPosition();
         highlightPosition = x;
-        repaint();
+        repaintHighlightPosition();
     }
 
     public void removeHighlightPosition() {
+        repaintHighlightPosition();
         highlightPosition = -Double.MAX_VALUE;
     }
 
+    private void repaintHighlightPosition() {
+        if (highlightPosition != -Double.MAX_VALUE) {
+            repaint((int) Math.round(getWidth() * highlightPosition) - 1, 0, 3, getHeight());
+        }
+    }
+
     public boolean isDrawLinearReference() {
         return drawLinearReference;
     }
@@ -523,15 +753,18 @@ public class FunctionPanel extends JPanel implements MouseListener, MouseMotionL
     }
 
     public interface BackgroundImageProducer {
+        /**
+         * @return the image to paint behind the curve, or null for none
+         */
         Image getBackgroundImage(int width, int height);
-
-        Image getForegroundImage(int width, int height, double x);
     }
 
-    @Value
-    public static class CurrentValueEvent {
-        double inputValue;
-        double outputValue;
+    /**
+     * Paints straight onto the panel, on top of the background image and below the curve.
+     * Called on every paint, also when only a small region is repainted, so it should not allocate.
+     */
+    public interface OverlayPainter {
+        void paintOverlay(Graphics2D graphics2D, int width, int height);
     }
 
 }
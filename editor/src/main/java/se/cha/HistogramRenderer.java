@@ -0,0 +1,143 @@
+package se.cha;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+
+/**
+ * Renders the original and output histograms straight into the int raster of one reused image.
+ * <p>
+ * Each histogram layer is a filled area with an outline, the output histogram below the original histogram.
+ * The colors of every combination of covering layers are blended once, when the renderer is created,
+ * so each pixel is a table lookup. Column heights are found in a table of gamma enhanced height thresholds, without
+ * any {@link Math#pow(double, double)} per column.
+ */
+public class HistogramRenderer {
+
+    private static final int FILL = 1;
+    private static final int LINE = 2;
+
+    // Blended color of every output layer coverage (high bits) and original layer coverage (low bits)
+    private final int[] layerColors = new int[16];
+
+    private BufferedImage image = null;
+    private int[] pixels = null;
+    private int[] originalTops = new int[0];
+    private int[] outputTops = new int[0];
+
+    private double[] heightThresholds = new double[0];
+    private double heightThresholdsGamma = Double.NaN;
+
+    public HistogramRenderer(Color originalFillColor, Color originalLineColor, Color outputFillColor, Color outputLineColor) {
+        for (int outputCoverage = 0; outputCoverage < 4; outputCoverage++) {
+            for (int originalCoverage = 0; originalCoverage < 4; originalCoverage++) {
+                int argb = 0;
+                argb = ((outputCoverage & FILL) != 0) ? over(argb, outputFillColor) : argb;
+                argb = ((outputCoverage & LINE) != 0) ? over(argb, outputLineColor) : argb;
+                argb = ((originalCoverage & FILL) != 0) ? over(argb, originalFillColor) : argb;
+                argb = ((originalCoverage & LINE) != 0) ? over(argb, originalLineColor) : argb;
+                layerColors[(outputCoverage << 2) | originalCoverage] = argb;
+            }
+        }
+    }
+
+    /**
+     * Renders the histograms, one column per box, with box values enhanced by the gamma.
+     * The returned image is reused by the next render of the same size.
+     */
+    public BufferedImage render(int height, Histogram originalHistogram, Histogram outputHistogram, double gamma) {
+        final int width = originalHistogram.getAmountBoxes();
+        if (outputHistogram.getAmountBoxes() != width) {
+            throw new IllegalArgumentException("Histograms must have the same amount of boxes but had " + width + " and " + outputHistogram.getAmountBoxes());
+        }
+
+        prepare(width, height, gamma);
+        calculateTops(originalHistogram, height, originalTops);
+        calculateTops(outputHistogram, height, outputTops);
+
+        for (int y = 0; y < height; y++) {
+            final int rowOffset = y * width;
+            for (int x = 0; x < width; x++) {
+                final int outputCoverage = getCoverage(outputTops, x, y);
+                final int originalCoverage = getCoverage(originalTops, x, y);
+                pixels[rowOffset + x] = layerColors[(outputCoverage << 2) | originalCoverage];
+            }
+        }
+
+        return image;
+    }
+
+    private void prepare(int width, int height, double gamma) {
+        if ((image == null) || (image.getWidth() != width) || (image.getHeight() != height)) {
+            image = new BufferedImage(Math.max(1, width), Math.max(1, height), BufferedImage.TYPE_INT_ARGB);
+            pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+            originalTops = new int[width];
+            outputTops = new int[width];
+        }
+
+        if ((heightThresholds.length != height + 1) || (heightThresholdsGamma != gamma)) {
+            // A box value v reaches height k when v^gamma * height >= k, that is when v >= (k / height)^(1 / gamma)
+            heightThresholds = new double[height + 1];
+            for (int k = 0; k <= height; k++) {
+                heightThresholds[k] = Math.pow(k / (1.0 * height), 1.0 / gamma);
+            }
+            heightThresholdsGamma = gamma;
+        }
+    }
+
+    /**
+     * Finds the top row of every column, the height of the box value found by binary search in the height thresholds.
+     */
+    private void calculateTops(Histogram histogram, int height, int[] tops) {
+        for (int x = 0; x < tops.length; x++) {
+            final double value = histogram.getValueRGB(x);
+
+            int low = 0;
+            int high = height;
+            while (low < high) {
+                final int middle = (low + high + 1) >>> 1;
+                if (heightThresholds[middle] <= value) {
+                    low = middle;
+                } else {
+                    high = middle - 1;
+                }
+            }
+
+            tops[x] = height - low;
+        }
+    }
+
+    /**
+     * @return the coverage of the pixel by the layer, the fill below the column top and the outline from the top of
+     * the previous column to the top of this column
+     */
+    private static int getCoverage(int[] tops, int x, int y) {
+        final int top = tops[x];
+        final int previousTop = (x > 0) ? tops[x - 1] : top;
+
+        int coverage = (y >= top) ? FILL : 0;
+        if ((y >= Math.min(top, previousTop)) && (y <= Math.max(top, previousTop))) {
+            coverage |= LINE;
+        }
+
+        return coverage;
+    }
+
+    /**
+     * Blends the color over the ARGB value, with non premultiplied alpha like a {@link Graphics2D} with source over composite.
+     */
+    static int over(int argb, Color color) {
+        final double sourceAlpha = color.getAlpha() / 255.0;
+        final double destinationAlpha = ((argb >>> 24) & 0xFF) / 255.0 * (1.0 - sourceAlpha);
+        final double alpha = sourceAlpha + destinationAlpha;
+        if (alpha <= 0.0) {
+            return 0;
+        }
+
+        final int red = (int) Math.round((color.getRed() * sourceAlpha + ((argb >> 16) & 0xFF) * destinationAlpha) / alpha);
+        final int green = (int) Math.round((color.getGreen() * sourceAlpha + ((argb >> 8) & 0xFF) * destinationAlpha) / alpha);
+        final int blue = (int) Math.round((color.getBlue() * sourceAlpha + (argb & 0xFF) * destinationAlpha) / alpha);
+
+        return ((int) Math.round(alpha * 255.0) << 24) | (red << 16) | (green << 8) | blue;
+    }
+}
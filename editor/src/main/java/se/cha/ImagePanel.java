@@ -0,0 +1,323 @@
+package se.cha;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseListener;
+import java.awt.event.MouseMotionListener;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+
+public class ImagePanel extends JPanel implements MouseMotionListener, MouseListener {
+
+    private static final Color SPLIT_LINE_COLOR = new Color(255, 255, 255, 160);
+
+    private final List<MousePositionListener> mousePositionListeners = new ArrayList<>();
+    private BufferedImage image = null;
+    private ImagePyramid imagePyramid = null;
+    private BufferedImage originalImage = null;
+    private ImagePyramid originalImagePyramid = null;
+    private ComparisonMode comparisonMode = ComparisonMode.AFTER;
+    private double splitPosition = 0.5;
+    private int sourceWidth;
+    private int sourceHeight;
+
+    private int scaledImageWidth;
+    private int scaledImageHeight;
+    private double scaleFactor = 1.0;
+
+    public ImagePanel() {
+        addMouseListener(this);
+        addMouseMotionListener(this);
+
+        setPreferredSize(new Dimension(400, 300));
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        final Graphics2D graphics2D = (Graphics2D) g;
+        graphics2D.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        graphics2D.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_SPEED);
+        graphics2D.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        graphics2D.setRenderingHint(RenderingHints.KEY_STROKE_CONTROL, RenderingHints.VALUE_STROKE_PURE);
+
+        final int width = graphics2D.getClipBounds().width;
+        final int height = graphics2D.getClipBounds().height;
+
+        graphics2D.setColor(new Color(0, 0, 0, 0));
+        graphics2D.fillRect(0, 0, width - 1, height - 1);
+
+        if (image != null) {
+            final double scaleFactor = getScaleFactor();
+
+            scaledImageWidth = (int) (sourceWidth / scaleFactor);
+            scaledImageHeight = (int) (sourceHeight / scaleFactor);
+
+            // Until the original image is rendered the image stands in for it
+            final ImagePyramid beforePyramid = (originalImagePyramid != null) ? originalImagePyramid : imagePyramid;
+
+            switch (comparisonMode) {
+                case BEFORE:
+                    drawPyramid(graphics2D, beforePyramid);
+                    break;
+                case SPLIT:
+                    final int splitX = getSplitX();
+                    final Shape clip = graphics2D.getClip();
+                    graphics2D.clipRect(0, 0, splitX, scaledImageHeight);
+                    drawPyramid(graphics2D, beforePyramid);
+                    graphics2D.setClip(clip);
+                    graphics2D.clipRect(splitX, 0, scaledImageWidth - splitX, scaledImageHeight);
+                    drawPyramid(graphics2D, imagePyramid);
+                    graphics2D.setClip(clip);
+
+                    graphics2D.setColor(SPLIT_LINE_COLOR);
+                    graphics2D.fillRect(splitX, 0, 1, scaledImageHeight);
+                    break;
+                default:
+                    drawPyramid(graphics2D, imagePyramid);
+                    break;
+            }
+        }
+
+        graphics2D.dispose();
+    }
+
+    /**
+     * Paints the pyramid level closest to the painted size, bilinear scaling of it is then enough.
+     */
+    private void drawPyramid(Graphics2D graphics2D, ImagePyramid pyramid) {
+        final double downscaleFactor = pyramid.getBaseImage().getWidth() / (1.0 * Math.max(1, scaledImageWidth));
+        final BufferedImage levelImage = pyramid.getLevel(Math.max(1.0, downscaleFactor));
+
+        // final int x1 = Math.max((width - newImageWidth) / 2, 0);
+        // final int y1 = Math.max((height - newImageHeight) / 2, 0);
+        graphics2D.drawImage(levelImage, 0, 0, scaledImageWidth, scaledImageHeight, null);
+    }
+
+    private int getSplitX() {
+        return (int) Math.round(scaledImageWidth * splitPosition);
+    }
+
+    public void setImage(BufferedImage image) {
+        if (image != null) {
+            setImage(image, image.getWidth(null), image.getHeight(null));
+        } else {
+            setImage(null, 0, 0);
+        }
+    }
+
+    /**
+     * Sets an image rendered from a source image of possibly another size, like a low resolution preview.
+     * The image is stretched to cover the source image size, and mouse positions are reported in source image pixels.
+     */
+    public void setImage(BufferedImage image, int sourceWidth, int sourceHeight) {
+        this.image = image;
+        this.imagePyramid = (image != null) ? new ImagePyramid(image) : null;
+        this.sourceWidth = sourceWidth;
+        this.sourceHeight = sourceHeight;
+        if (image != null) {
+            setPreferredSize(new Dimension(sourceWidth, sourceHeight));
+        } else {
+            setPreferredSize(new Dimension(400, 300));
+        }
+        repaint();
+    }
+
+    public BufferedImage getImage() {
+        return this.image;
+    }
+
+    /**
+     * Sets the original image, rendered without any changes from the same source image as the image,
+     * shown before the image when comparing. The panel keeps it, so it must not be changed afterwards.
+     */
+    public void setOriginalImage(BufferedImage originalImage) {
+        this.originalImage = originalImage;
+        this.originalImagePyramid = (originalImage != null) ? new ImagePyramid(originalImage) : null;
+        if (comparisonMode != ComparisonMode.AFTER) {
+            repaint();
+        }
+    }
+
+    public BufferedImage getOriginalImage() {
+        return originalImage;
+    }
+
+    /**
+     * Switches between the images already set, so changing the mode only repaints.
+     */
+    public void setComparisonMode(ComparisonMode comparisonMode) {
+        if (this.comparisonMode != comparisonMode) {
+            this.comparisonMode = comparisonMode;
+            repaint();
+        }
+    }
+
+    public ComparisonMode getComparisonMode() {
+        return comparisonMode;
+    }
+
+    /**
+     * @param splitPosition where the split view changes from the original image to the image,
+     *                      as a fraction of the displayed image width
+     */
+    public void setSplitPosition(double splitPosition) {
+        this.splitPosition = Math.max(0.0, Math.min(splitPosition, 1.0));
+        if (comparisonMode == ComparisonMode.SPLIT) {
+            repaint();
+        }
+    }
+
+    public double getSplitPosition() {
+        return splitPosition;
+    }
+
+    public double getScaleFactor() {
+        scaleFactor = 1.0;
+
+        if (image != null) {
+            final int width = getWidth();
+            final int height = getHeight();
+
+            final int imageWidth = sourceWidth;
+            final int imageHeight = sourceHeight;
+
+            if ((imageWidth > width) || (imageHeight > height)) {
+                scaleFactor = Math.max(imageWidth / (1.0 * width), imageHeight / (1.0 * height));
+            }
+        }
+
+        return scaleFactor;
+    }
+
+    /**
+     * The size, in panel pixels, a source image of the given size is displayed with.
+     * Rendering the source with more pixels than this is wasted, they are scaled down when painted anyway.
+     * Before the panel has been laid out the source size is returned.
+     */
+    public Dimension getDisplaySize(int sourceWidth, int sourceHeight) {
+        final int width = getWidth();
+        final int height = getHeight();
+
+        if ((width <= 0) || (height <= 0)) {
+            return new Dimension(sourceWidth, sourceHeight);
+        }
+
+        final double displayScaleFactor = Math.max(1.0, Math.max(sourceWidth / (1.0 * width), sourceHeight / (1.0 * height)));
+        return new Dimension(
+                Math.max(1, (int) Math.ceil(sourceWidth / displayScaleFactor)),
+                Math.max(1, (int) Math.ceil(sourceHeight / displayScaleFactor)));
+    }
+
+    /**
+     * What the panel shows: the image, the original image, or the original image left of the split position
+     * and the image right of it.
+     */
+    public enum ComparisonMode {
+        AFTER, BEFORE, SPLIT
+    }
+
+    public interface MousePositionListener {
+        void mousePositionChanged(java.awt.Point point);
+    }
+
+    private void notifyMousePositionListeners(java.awt.Point point) {
+        for (final MousePositionListener mousePositionListener : mousePositionListeners) {
+            mousePositionListener.mousePositionChanged(point);
+        }
+    }
+
+    public void addMousePositionListener(MousePositionListener listener) {
+        mousePositionListeners.add(listener);
+    }
+
+    public boolean removeMousePositionListener(MousePositionListener listener) {
+        return mousePositionListeners.remove(listener);
+    }
+
+    @Override
+    public void mouseDragged(MouseEvent mouseEvent) {
+        moveSplitPosition(mouseEvent);
+
+        final java.awt.Point mousePositionPoint = getMousePositionPoint(mouseEvent);
+        notifyMousePositionListeners(mousePositionPoint);
+    }
+
+    @Override
+    public void mouseMoved(MouseEvent mouseEvent) {
+        final java.awt.Point mousePositionPoint = getMousePositionPoint(mouseEvent);
+        notifyMousePositionListeners(mousePositionPoint);
+    }
+
+    @Override
+    public void mouseClicked(MouseEvent e) {
+        // Nothing by intention...
+    }
+
+    @Override
+    public void mousePressed(MouseEvent mouseEvent) {
+        moveSplitPosition(mouseEvent);
+    }
+
+    /**
+     * Moves the split of the split view to the mouse, repainting only the columns between the old and new split.
+     */
+    private void moveSplitPosition(MouseEvent mouseEvent) {
+        if ((comparisonMode != ComparisonMode.SPLIT) || (image == null) || (scaledImageWidth <= 0)) {
+            return;
+        }
+
+        final int oldSplitX = getSplitX();
+        splitPosition = Math.max(0.0, Math.min(mouseEvent.getX() / (1.0 * scaledImageWidth), 1.0));
+        final int newSplitX = getSplitX();
+
+        if (newSplitX != oldSplitX) {
+            repaint(Math.min(oldSplitX, newSplitX), 0, Math.abs(newSplitX - oldSplitX) + 1, scaledImageHeight);
+        }
+    }
+
+    @Override
+    public void mouseReleased(MouseEvent e) {
+        // Nothing by intention...
+    }
+
+    @Override
+    public void mouseEntered(MouseEvent mouseEvent) {
+        final java.awt.Point mousePositionPoint = getMousePositionPoint(mouseEvent);
+        notifyMousePositionListeners(mousePositionPoint);
+    }
+
+    @Override
+    public void mouseExited(MouseEvent e) {
+        notifyMousePositionListeners(null);
+    }
+
+    private java.awt.Point getMousePositionPoint(MouseEvent mouseEvent) {
+        if (image == null) {
+            return null;
+        }
+
+        final int imageWidth = sourceWidth;
+        final int imageHeight = sourceHeight;
+
+        final int widthScaled = scaledImageWidth;
+        final int heightScaled = scaledImageHeight;
+
+        final java.awt.Point pixelPoint = mouseEvent.getPoint();
+
+        if ((pixelPoint.y < heightScaled) && (pixelPoint.x < widthScaled)) {
+            final double normalizedX = pixelPoint.x / (1.0 * (widthScaled - 1));
+            final double normalizedY = pixelPoint.y / (1.0 * (heightScaled - 1));
+
+            final int imageX = (int) Math.round(normalizedX * imageWidth);
+            final int imageY = (int) Math.round(normalizedY * imageHeight);
+
+            if ((imageX >= 0) && (imageX <= (imageWidth - 1)) && (imageY >= 0) && (imageY <= (imageHeight - 1))) {
+                return new java.awt.Point(imageX, imageY);
+            }
+        }
+
+        return null;
+    }
+}
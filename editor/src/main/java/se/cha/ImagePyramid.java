@@ -0,0 +1,98 @@
+package se.cha;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Multi resolution pyramid (mipmap) of a rendered image. Every level is half the width and height of the level
+ * above it, each pixel the box filtered average of the 2x2 pixels it covers.
+ * <p>
+ * Levels are built when first asked for, one level from the one above it, so a new frame only costs
+ * the levels actually painted.
+ */
+public class ImagePyramid {
+
+    private final List<BufferedImage> levels = new ArrayList<>();
+
+    public ImagePyramid(BufferedImage image) {
+        levels.add(image);
+    }
+
+    public BufferedImage getBaseImage() {
+        return levels.get(0);
+    }
+
+    /**
+     * @param downscaleFactor how many times smaller than the base image the image is painted, 1.0 or more
+     * @return the smallest level still at least as large as the painted size, so painting it never scales up
+     */
+    public BufferedImage getLevel(double downscaleFactor) {
+        int levelIndex = 0;
+        while ((1 << (levelIndex + 1)) <= downscaleFactor) {
+            final BufferedImage level = getLevel(levelIndex);
+            if ((level.getWidth() < 2) || (level.getHeight() < 2)) {
+                break;
+            }
+            levelIndex++;
+        }
+
+        return getLevel(levelIndex);
+    }
+
+    private BufferedImage getLevel(int levelIndex) {
+        while (levels.size() <= levelIndex) {
+            levels.add(createHalfSizeImage(levels.get(levels.size() - 1)));
+        }
+
+        return levels.get(levelIndex);
+    }
+
+    private static BufferedImage createHalfSizeImage(BufferedImage image) {
+        final int width = image.getWidth();
+        final int height = image.getHeight();
+        final int[] pixels = getPixels(image);
+        // Only int RGB images may have undefined alpha bits, they are opaque
+        final int opaqueAlpha = (image.getType() == BufferedImage.TYPE_INT_RGB) ? 0xFF000000 : 0;
+
+        final int halfWidth = Math.max(1, width / 2);
+        final int halfHeight = Math.max(1, height / 2);
+        final BufferedImage halfSizeImage = new BufferedImage(halfWidth, halfHeight, BufferedImage.TYPE_INT_ARGB);
+        final int[] halfSizePixels = ((DataBufferInt) halfSizeImage.getRaster().getDataBuffer()).getData();
+
+        IntStream.range(0, halfHeight).parallel().forEach(halfY -> {
+            final int y1 = Math.min(2 * halfY, height - 1);
+            final int y2 = Math.min(y1 + 1, height - 1);
+
+            for (int halfX = 0; halfX < halfWidth; halfX++) {
+                final int x1 = Math.min(2 * halfX, width - 1);
+                final int x2 = Math.min(x1 + 1, width - 1);
+
+                halfSizePixels[halfY * halfWidth + halfX] = average(
+                        pixels[y1 * width + x1], pixels[y1 * width + x2],
+                        pixels[y2 * width + x1], pixels[y2 * width + x2]) | opaqueAlpha;
+            }
+        });
+
+        return halfSizeImage;
+    }
+
+    private static int average(int argb1, int argb2, int argb3, int argb4) {
+        int average = 0;
+        for (int shift = 0; shift < 32; shift += 8) {
+            final int sum = ((argb1 >>> shift) & 0xFF) + ((argb2 >>> shift) & 0xFF) + ((argb3 >>> shift) & 0xFF) + ((argb4 >>> shift) & 0xFF);
+            average |= ((sum + 2) >> 2) << shift;
+        }
+        return average;
+    }
+
+    private static int[] getPixels(BufferedImage image) {
+        if ((image.getType() == BufferedImage.TYPE_INT_ARGB) || (image.getType() == BufferedImage.TYPE_INT_RGB)) {
+            return ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        }
+
+        return image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth());
+    }
+}
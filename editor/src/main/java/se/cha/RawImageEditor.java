@@ -0,0 +1,769 @@
+package se.cha;
+
+import com.formdev.flatlaf.FlatDarkLaf;
+import se.cha.dependency.DoubleSource;
+import se.cha.dependency.Product;
+import se.cha.dependency.Source;
+import se.cha.function.SplineFunction;
+import se.cha.function.ToneCurve;
+import se.cha.function.ToneCurveLut;
+
+import javax.imageio.ImageIO;
+import javax.swing.*;
+import javax.swing.border.EmptyBorder;
+import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
+import java.awt.event.InputEvent;
+import java.awt.event.KeyEvent;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.math.RoundingMode;
+import java.text.NumberFormat;
+import java.util.stream.IntStream;
+
+import static java.awt.GridBagConstraints.BOTH;
+import static java.awt.GridBagConstraints.HORIZONTAL;
+import static java.awt.GridBagConstraints.NONE;
+import static java.awt.GridBagConstraints.NORTHEAST;
+import static java.awt.GridBagConstraints.NORTHWEST;
+import static java.awt.GridBagConstraints.VERTICAL;
+
+public class RawImageEditor extends JFrame {
+
+    // Largest difference between tone curve tables that still renders the same frame
+    private static final double TONE_CURVE_TOLERANCE = 1.0e-9;
+
+    private static final String RENDER_CACHE_BUDGET_PROPERTY = "rawimageeditor.renderCacheBytes";
+    private static final long DEFAULT_RENDER_CACHE_BUDGET = 256L * 1024 * 1024;
+
+    // Texts of all 8 bit channel values, shown for the hovered pixel
+    private static final String[] CHANNEL_TEXTS = IntStream.range(0, 256).mapToObj(Integer::toString).toArray(String[]::new);
+
+    public static void main(String[] args) {
+        System.out.println("Running raw image editor...");
+
+        final File defaultRawImageDirectory = getDefaultRawImageDirectory(args);
+
+        FlatDarkLaf.setup();
+
+        try {
+            UIManager.setLookAndFeel(new FlatDarkLaf());
+        } catch (Exception ex) {
+            System.err.println("Failed to initialize LaF");
+        }
+
+        // Run the GUI codes on the Event-Dispatching thread for thread safety
+        SwingUtilities.invokeLater(new Runnable() {
+            private final Color originalMarkerColor = new Color(128, 255, 255, 128);
+            private final Color outputMarkerColor = new Color(255, 128, 128, 196);
+
+            // Marker positions last painted on the function panel
+            private int inputMarkerX = -1;
+            private int outputMarkerX = -1;
+
+            // Mouse positions over the image are coalesced, and handled at most once per display refresh
+            private final Timer mousePositionTimer = new Timer(1000 / 60, event -> updateMousePosition());
+            private java.awt.Point pendingMousePosition = null;
+            private boolean mousePositionPending = false;
+
+            private final NumberFormat intensityNumberFormat = NumberFormat.getInstance();
+            // Packed ARGB colors of the hovered pixel, ColorPanel.NO_COLOR for none
+            private int originalColor = ColorPanel.NO_COLOR;
+            private int outputColor = ColorPanel.NO_COLOR;
+            private long shownIntensityVersion = -1;
+
+            private final ComboBoxDoubleItem histogramOptionLinear = new ComboBoxDoubleItem("Linear (γ=1.0)", 1.0);
+            private final ComboBoxDoubleItem histogramOption075 = new ComboBoxDoubleItem("Enhance low values (γ=0.75)", 0.75);
+            private final ComboBoxDoubleItem histogramOption050 = new ComboBoxDoubleItem("Enhance low values (γ=0.50)", 0.50);
+            private final ComboBoxDoubleItem histogramOption025 = new ComboBoxDoubleItem("Enhance low values (γ=0.25)", 0.25);
+            private final ComboBoxDoubleItem histogramOption012 = new ComboBoxDoubleItem("Enhance low values (γ=0.12)", 0.12);
+
+            private final JComboBox<ComboBoxDoubleItem> histogramGammaComboBox = new JComboBox<>(new ComboBoxDoubleItem[]{histogramOptionLinear, histogramOption075, histogramOption050, histogramOption025, histogramOption012});
+
+            private final HistogramRenderer histogramRenderer = new HistogramRenderer(
+                    new Color(128, 255, 255, 16), new Color(128, 255, 255, 64),
+                    new Color(255, 128, 128, 16), new Color(255, 128, 128, 64));
+
+            final ImagePanel imagePanel = new ImagePanel();
+            final FunctionPanel functionPanel = new FunctionPanel(new SplineFunction());
+            final RawFloatImage rawFloatImage = new RawFloatImage();
+            final RenderService renderService = new RenderService(this::publishFrame);
+            // Frames and output histograms of recent curves, set the budget in bytes with the system property
+            final RenderResultCache renderResultCache = new RenderResultCache(Long.getLong(RENDER_CACHE_BUDGET_PROPERTY, DEFAULT_RENDER_CACHE_BUDGET));
+            // Curve and display size of the latest full resolution render request, null for proxy renders
+            private ToneCurveLut pendingFrameToneCurve = null;
+            private Dimension pendingFrameSize = null;
+            // Renders the unchanged original once per image and display size while it is compared with, kept by the image panel
+            final RenderService originalRenderService = new RenderService(imagePanel::setOriginalImage);
+
+            // Inputs of the derived products below, set on the event dispatch thread when they change
+            private final Source<RawFloatImage> imageSource = new Source<>(rawFloatImage);
+            private final Source<RawFloatImage> baseHistogramSource = new Source<>(rawFloatImage);
+            // Zooming in and out again rescales the points, the tables baked before and after only differ by rounding
+            private final Source<ToneCurveLut> toneCurveSource = new Source<>(null, (lut1, lut2) -> lut1.isEquivalent(lut2, TONE_CURVE_TOLERANCE));
+            private final Source<Range> zoomRangeSource = new Source<>(null);
+            private final Source<Boolean> adjustingSource = new Source<>(Boolean.FALSE);
+            private final Source<Dimension> imagePanelSizeSource = new Source<>(null);
+            private final Source<Integer> functionPanelWidthSource = new Source<>(0);
+            private final Source<Integer> functionPanelHeightSource = new Source<>(0);
+            private final Source<Double> histogramGammaSource = new Source<>(1.0);
+            private final Source<ImagePanel.ComparisonMode> comparisonModeSource = new Source<>(ImagePanel.ComparisonMode.AFTER);
+            // Normalized intensity of the hovered pixel or curve position, NaN for none
+            private final DoubleSource highlightIntensitySource = new DoubleSource(Double.NaN);
+
+            // Derived products, each recomputed only when one of its inputs has changed
+            private final Product<Histogram> originalHistogram = new Product<>(
+                    () -> rawFloatImage.getIntensityHistogram(functionPanelWidthSource.get(), zoomRangeSource.get()),
+                    baseHistogramSource, zoomRangeSource, functionPanelWidthSource);
+            private final Product<Histogram> outputHistogram = new Product<>(this::getOutputHistogram,
+                    baseHistogramSource, toneCurveSource, zoomRangeSource, functionPanelWidthSource);
+            private final Product<BufferedImage> histogramImage = new Product<>(this::renderHistogramImage,
+                    originalHistogram, outputHistogram, histogramGammaSource, functionPanelHeightSource);
+            private final Product<ToneCurve> renderedFrame = new Product<>(this::requestImageRender,
+                    imageSource, toneCurveSource, adjustingSource, imagePanelSizeSource);
+            private final Product<ToneCurve> originalFrame = new Product<>(this::requestOriginalImageRender,
+                    imageSource, imagePanelSizeSource, comparisonModeSource);
+            private final int[] markerPositions = new int[2];
+            private final Product<int[]> highlightOverlay = new Product<>(this::calculateMarkerPositions,
+                    highlightIntensitySource, toneCurveSource, zoomRangeSource, functionPanelWidthSource);
+
+            final JLabel imageZoomLabel = new JLabel("Image scale:");
+
+            final ColorPanel originalColorPanel = new ColorPanel(50);
+            final ColorPanel outputColorPanel = new ColorPanel(50);
+
+            final JLabel originalColorRedValueLabel = new JLabel("", SwingConstants.RIGHT);
+            final JLabel originalColorGreenValueLabel = new JLabel("", SwingConstants.RIGHT);
+            final JLabel originalColorBlueValueLabel = new JLabel("", SwingConstants.RIGHT);
+            final JLabel outputColorRedValueLabel = new JLabel("", SwingConstants.RIGHT);
+            final JLabel outputColorGreenValueLabel = new JLabel("", SwingConstants.RIGHT);
+            final JLabel outputColorBlueValueLabel = new JLabel("", SwingConstants.RIGHT);
+            final JLabel originalIntensityValueLabel = new JLabel("", SwingConstants.RIGHT);
+            final JLabel outputIntensityValueLabel = new JLabel("", SwingConstants.RIGHT);
+
+            @Override
+            public void run() {
+                intensityNumberFormat.setMinimumIntegerDigits(1);
+                intensityNumberFormat.setMinimumFractionDigits(4);
+                intensityNumberFormat.setMaximumFractionDigits(4);
+
+                originalIntensityValueLabel.setForeground(originalMarkerColor);
+                outputIntensityValueLabel.setForeground(outputMarkerColor);
+
+                final RawImageEditor frame = new RawImageEditor();
+                frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+
+                histogramGammaComboBox.addActionListener(new AbstractAction() {
+                    @Override
+                    public void actionPerformed(ActionEvent e) {
+                        final ComboBoxDoubleItem selectedItem = (ComboBoxDoubleItem) ((JComboBox<ComboBoxDoubleItem>) e.getSource()).getSelectedItem();
+                        // Only the histogram image depends on the gamma, the histograms are kept
+                        histogramGammaSource.set(selectedItem.getValue());
+                        functionPanel.repaint();
+                    }
+                });
+                histogramGammaComboBox.setSelectedItem(histogramOption025);
+
+                final JButton histogramZoomCheckBox = new JButton(new AbstractAction("Zoom to extent points") {
+                    @Override
+                    public void actionPerformed(ActionEvent event) {
+                        final boolean isZoomed = functionPanel.isZoomed();
+
+                        if (!isZoomed) {
+                            functionPanel.setZoom();
+                        } else {
+                            functionPanel.resetZoom();
+                        }
+
+                        ((JButton) event.getSource()).setText(isZoomed ? "Zoom to extent points" : "Zoom out");
+                    }
+                });
+
+                final JCheckBox splitViewCheckBox = new JCheckBox("Split view (before | after)");
+                final JCheckBox histogramCheckBox = new JCheckBox("Apply intensity response curve");
+                // The original frame is rendered once comparing starts, then comparing only swaps or splits the frames when painting
+                final ActionListener comparisonModeListener = event -> {
+                    if (splitViewCheckBox.isSelected()) {
+                        comparisonModeSource.set(ImagePanel.ComparisonMode.SPLIT);
+                    } else {
+                        comparisonModeSource.set(histogramCheckBox.isSelected() ? ImagePanel.ComparisonMode.AFTER : ImagePanel.ComparisonMode.BEFORE);
+                    }
+                    imagePanel.setComparisonMode(comparisonModeSource.get());
+                    originalFrame.get();
+                };
+                splitViewCheckBox.addActionListener(comparisonModeListener);
+                histogramCheckBox.addActionListener(comparisonModeListener);
+
+                // Large images get an estimated histogram at once, the exact histogram replaces it when done
+                rawFloatImage.setHistogramMode(Histogram.Mode.PROGRESSIVE);
+                rawFloatImage.addHistogramChangedListener(() -> SwingUtilities.invokeLater(() -> {
+                    renderResultCache.clearHistograms();
+                    baseHistogramSource.changed();
+                    functionPanel.repaint();
+                }));
+
+                functionPanel.addFunctionChangedListener(this::functionChanged);
+                functionPanel.addCurrentValueListener((inputValue, outputValue) -> {
+                    highlightIntensitySource.set(rawFloatImage.isValid() ? inputValue : Double.NaN);
+                    updateIntensityInformationLabels();
+                    updateHighlightMarkers();
+                });
+
+                functionPanel.setBackgroundImageProducer(this::createHistogramImage);
+                functionPanel.setOverlayPainter(this::paintHighlightMarkers);
+
+                imagePanel.addComponentListener(new ComponentAdapter() {
+                    @Override
+                    public void componentResized(ComponentEvent e) {
+                        updateImageScaleInformation();
+                        imagePanelSizeSource.set(imagePanel.getSize());
+                        renderedFrame.get();
+                        originalFrame.get();
+                    }
+                });
+
+                mousePositionTimer.setRepeats(false);
+                imagePanel.addMousePositionListener(point -> {
+                    pendingMousePosition = point;
+                    mousePositionPending = true;
+                    if (!mousePositionTimer.isRunning()) {
+                        mousePositionTimer.start();
+                    }
+                });
+
+                final JPanel imageBorder = setupImagePanel();
+                final JPanel functionBorder = setupFunctionPanel();
+
+                final JButton loadButton = new JButton(new AbstractAction("Load raw image...") {
+                    @Override
+                    public void actionPerformed(ActionEvent event) {
+                        try {
+                            final JFileChooser fileChooser = new JFileChooser();
+                            fileChooser.setDialogTitle("Choose raw image file");
+                            fileChooser.setDialogType(JFileChooser.OPEN_DIALOG);
+                            fileChooser.setFileSelectionMode(JFileChooser.FILES_ONLY);
+                            fileChooser.setMultiSelectionEnabled(false);
+                            fileChooser.setCurrentDirectory(defaultRawImageDirectory);
+                            final int result = fileChooser.showDialog(imagePanel, "Load");
+
+                            if (result == JFileChooser.APPROVE_OPTION) {
+                                final File selectedFile = fileChooser.getSelectedFile();
+                                renderService.cancel();
+                                originalRenderService.cancel();
+                                rawFloatImage.loadFile(selectedFile, PixelData.StorageMode.AUTO);
+                                imagePanel.setOriginalImage(null);
+                                renderResultCache.clear();
+                                // Show the proxy at once, the curve reset below renders the displayed frame
+                                imagePanel.setImage(rawFloatImage.getProxy().getImage(functionPanel.getToneCurveLut()), rawFloatImage.getWidth(), rawFloatImage.getHeight());
+
+                                frame.setTitle(selectedFile.getName());
+                                imageSource.changed();
+                                baseHistogramSource.changed();
+                            }
+
+                            // The function changed listener brings the products of the new image up to date
+                            functionPanel.reset();
+
+                            updateImageScaleInformation();
+                        } catch (IOException e) {
+                            e.printStackTrace();
+                        }
+                    }
+                });
+                final JButton saveButton = new JButton(new AbstractAction("Save png image...") {
+                    @Override
+                    public void actionPerformed(ActionEvent e) {
+                        try {
+                            final JFileChooser fileChooser = new JFileChooser();
+                            fileChooser.setDialogTitle("Save image as png file");
+                            fileChooser.setDialogType(JFileChooser.SAVE_DIALOG);
+                            fileChooser.setFileSelectionMode(JFileChooser.FILES_ONLY);
+                            fileChooser.setMultiSelectionEnabled(false);
+                            fileChooser.setCurrentDirectory(defaultRawImageDirectory);
+                            final int result = fileChooser.showDialog(imagePanel, "Save");
+
+                            if ((result == JFileChooser.APPROVE_OPTION) && rawFloatImage.isValid()) {
+                                // The image panel only holds a frame of the displayed size, export the full resolution
+                                final BufferedImage image = rawFloatImage.getImage(getToneCurve(histogramCheckBox.isSelected()));
+                                ImageIO.write(image, "png", fileChooser.getSelectedFile());
+                            }
+                        } catch (IOException ex) {
+                            throw new RuntimeException(ex);
+                        }
+
+                    }
+                });
+                histogramCheckBox.setSelected(true);
+
+                setupUndoKeyBindings(frame, histogramZoomCheckBox);
+
+                final JPanel controlPanel = getControlPanel(histogramZoomCheckBox, histogramCheckBox, splitViewCheckBox, loadButton, saveButton);
+
+                final JSplitPane splitPane = new JSplitPane(JSplitPane.VERTICAL_SPLIT, imageBorder, functionBorder);
+                splitPane.setDividerLocation(0.7);
+                splitPane.setResizeWeight(1);
+
+                frame.add(controlPanel, BorderLayout.EAST);
+                frame.add(splitPane, BorderLayout.CENTER);
+                frame.pack();
+
+                final GraphicsEnvironment env = GraphicsEnvironment.getLocalGraphicsEnvironment();
+                final Rectangle maximumWindowBounds = env.getMaximumWindowBounds();
+                final Dimension preferredSize = frame.getPreferredSize();
+
+                final int width = Math.min(Math.max(preferredSize.width, 800), (int) (maximumWindowBounds.width * 0.8));
+                final int height = Math.min(Math.max(preferredSize.height, 600), (int) (maximumWindowBounds.height * 0.8));
+                frame.setSize(new Dimension(width, height));
+
+                frame.setVisible(true);
+            }
+
+            /**
+             * Binds undo and redo of curve edits to the menu shortcut key with Z, and with shift Z.
+             */
+            private void setupUndoKeyBindings(JFrame frame, JButton histogramZoomButton) {
+                final int shortcutMask = Toolkit.getDefaultToolkit().getMenuShortcutKeyMaskEx();
+                final InputMap inputMap = frame.getRootPane().getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW);
+                final ActionMap actionMap = frame.getRootPane().getActionMap();
+
+                inputMap.put(KeyStroke.getKeyStroke(KeyEvent.VK_Z, shortcutMask), "undoCurveEdit");
+                inputMap.put(KeyStroke.getKeyStroke(KeyEvent.VK_Z, shortcutMask | InputEvent.SHIFT_DOWN_MASK), "redoCurveEdit");
+                actionMap.put("undoCurveEdit", new AbstractAction() {
+                    @Override
+                    public void actionPerformed(ActionEvent event) {
+                        if (functionPanel.undo()) {
+                            histogramZoomButton.setText(functionPanel.isZoomed() ? "Zoom out" : "Zoom to extent points");
+                        }
+                    }
+                });
+                actionMap.put("redoCurveEdit", new AbstractAction() {
+                    @Override
+                    public void actionPerformed(ActionEvent event) {
+                        if (functionPanel.redo()) {
+                            histogramZoomButton.setText(functionPanel.isZoomed() ? "Zoom out" : "Zoom to extent points");
+                        }
+                    }
+                });
+            }
+
+            private void updateImageScaleInformation() {
+                final double zoom = 100.0 / imagePanel.getScaleFactor();
+                final NumberFormat percentNumberFormat = NumberFormat.getInstance();
+                percentNumberFormat.setMaximumFractionDigits(0);
+                percentNumberFormat.setRoundingMode(RoundingMode.HALF_UP);
+                imageZoomLabel.setText("Image scale: " + percentNumberFormat.format(zoom) + "%");
+            }
+
+            /**
+             * Shows the hovered colors. The channel texts come from a table, so a hover over another color allocates no text.
+             */
+            private void updateColorInformation() {
+                originalColorPanel.setColor(originalColor);
+                outputColorPanel.setColor(outputColor);
+
+                originalColorRedValueLabel.setText(getChannelText(originalColor, 16));
+                originalColorGreenValueLabel.setText(getChannelText(originalColor, 8));
+                originalColorBlueValueLabel.setText(getChannelText(originalColor, 0));
+                outputColorRedValueLabel.setText(getChannelText(outputColor, 16));
+                outputColorGreenValueLabel.setText(getChannelText(outputColor, 8));
+                outputColorBlueValueLabel.setText(getChannelText(outputColor, 0));
+            }
+
+            private String getChannelText(int argb, int shift) {
+                return (argb == ColorPanel.NO_COLOR) ? "" : CHANNEL_TEXTS[(argb >>> shift) & 0xFF];
+            }
+
+            private JPanel getControlPanel(JButton histogramZoomCheckBox, JCheckBox histogramCheckBox, JCheckBox splitViewCheckBox, JButton loadButton, JButton saveButton) {
+                final Insets noInsets = new Insets(0, 0, 0, 0);
+
+                final JLabel inputCaption = new JLabel("Input:");
+                final JLabel outputCaption = new JLabel("Output:");
+                inputCaption.setForeground(originalMarkerColor);
+                outputCaption.setForeground(outputMarkerColor);
+
+                final JPanel colorInformationPanel = getColorInformationPanel();
+
+                final JPanel controlPanel = new JPanel(new GridBagLayout());
+                controlPanel.setBorder(new EmptyBorder(8, 8, 8, 8));
+
+                int columnIndex = 0;
+                controlPanel.add(loadButton, new GridBagConstraints(0, columnIndex++, 1, 1, 0, 0, NORTHWEST, HORIZONTAL, new Insets(4, 4, 0, 4), 0, 0));
+                controlPanel.add(saveButton, new GridBagConstraints(0, columnIndex++, 1, 1, 0, 0, NORTHWEST, HORIZONTAL, new Insets(4, 4, 0, 4), 0, 0));
+                controlPanel.add(imageZoomLabel, new GridBagConstraints(0, columnIndex++, 1, 1, 0, 0, NORTHWEST, HORIZONTAL, new Insets(4, 4, 0, 4), 0, 0));
+                controlPanel.add(colorInformationPanel, new GridBagConstraints(0, columnIndex++, 1, 1, 0, 0, NORTHWEST, HORIZONTAL, new Insets(4, 4, 0, 4), 0, 0));
+
+                controlPanel.add(new JPanel(), new GridBagConstraints(0, columnIndex++, 1, 1, 0, 1, NORTHWEST, BOTH, noInsets, 0, 0));
+
+                controlPanel.add(histogramCheckBox, new GridBagConstraints(0, columnIndex++, 1, 1, 0, 0, NORTHWEST, HORIZONTAL, noInsets, 0, 0));
+                controlPanel.add(splitViewCheckBox, new GridBagConstraints(0, columnIndex++, 1, 1, 0, 0, NORTHWEST, HORIZONTAL, noInsets, 0, 0));
+                controlPanel.add(histogramZoomCheckBox, new GridBagConstraints(0, columnIndex++, 1, 1, 0, 0, NORTHWEST, HORIZONTAL, noInsets, 0, 0));
+                controlPanel.add(new JLabel("Histogram value scale:"), new GridBagConstraints(0, columnIndex++, 1, 1, 0, 0, NORTHWEST, NONE, new Insets(8, 4, 0, 4), 0, 0));
+                controlPanel.add(histogramGammaComboBox, new GridBagConstraints(0, columnIndex++, 1, 1, 0, 0, NORTHWEST, NONE, new Insets(0, 4, 0, 4), 0, 0));
+
+                return controlPanel;
+            }
+
+            private JPanel getColorInformationPanel() {
+                final JPanel colorInformationPanel = new JPanel(new GridBagLayout());
+
+                final JLabel inputRgbLabel = new JLabel("Input:");
+                inputRgbLabel.setForeground(originalMarkerColor);
+                final JLabel outputRgbLabel = new JLabel("Output:");
+                outputRgbLabel.setForeground(outputMarkerColor);
+
+                final JLabel originalRedLabel = new JLabel("Red:");
+                final JLabel originalGreenLabel = new JLabel("Green:");
+                final JLabel originalBlueLabel = new JLabel("Blue:");
+                final JLabel originalIntensityLabel = new JLabel("Intensity:");
+                final JLabel outputRedLabel = new JLabel("Red:");
+                final JLabel outputGreenLabel = new JLabel("Green:");
+                final JLabel outputBlueLabel = new JLabel("Blue:");
+                final JLabel outputIntensityLabel = new JLabel("Intensity:");
+                final Color labelOriginalForeground = originalRedLabel.getForeground();
+                final Color labelRgbForegroundColor = new Color(labelOriginalForeground.getRed(), labelOriginalForeground.getGreen(), labelOriginalForeground.getBlue(), 96);
+
+                originalRedLabel.setForeground(labelRgbForegroundColor);
+                originalGreenLabel.setForeground(labelRgbForegroundColor);
+                originalBlueLabel.setForeground(labelRgbForegroundColor);
+                originalIntensityLabel.setForeground(labelRgbForegroundColor);
+                outputRedLabel.setForeground(labelRgbForegroundColor);
+                outputGreenLabel.setForeground(labelRgbForegroundColor);
+                outputBlueLabel.setForeground(labelRgbForegroundColor);
+                outputIntensityLabel.setForeground(labelRgbForegroundColor);
+
+                int rowIndex = -1;
+
+                final Insets rgbInsets = new Insets(0, 4, 0, 4);
+
+                colorInformationPanel.add(inputRgbLabel, new GridBagConstraints(0, ++rowIndex, 3, 1, 0, 0, NORTHWEST, HORIZONTAL, new Insets(4, 4, 0, 4), 0, 0));
+                colorInformationPanel.add(originalColorPanel, new GridBagConstraints(0, ++rowIndex, 1, 4, 0, 0, NORTHWEST, VERTICAL, new Insets(4, 4, 0, 4), 0, 0));
+                colorInformationPanel.add(originalRedLabel, new GridBagConstraints(1, rowIndex + 0, 1, 1, 0, 0, NORTHWEST, NONE, rgbInsets, 0, 0));
+                colorInformationPanel.add(originalGreenLabel, new GridBagConstraints(1, rowIndex + 1, 1, 1, 0, 0, NORTHWEST, NONE, rgbInsets, 0, 0));
+                colorInformationPanel.add(originalBlueLabel, new GridBagConstraints(1, rowIndex + 2, 1, 1, 0, 0, NORTHWEST, NONE, rgbInsets, 0, 0));
+                colorInformationPanel.add(originalIntensityLabel, new GridBagConstraints(1, rowIndex + 3, 1, 1, 0, 0, NORTHWEST, NONE, new Insets(4, 4, 0, 4), 0, 0));
+                colorInformationPanel.add(originalColorRedValueLabel, new GridBagConstraints(2, rowIndex + 0, 1, 1, 1, 0, NORTHEAST, HORIZONTAL, rgbInsets, 0, 0));
+                colorInformationPanel.add(originalColorGreenValueLabel, new GridBagConstraints(2, rowIndex + 1, 1, 1, 1, 0, NORTHEAST, HORIZONTAL, rgbInsets, 0, 0));
+                colorInformationPanel.add(originalColorBlueValueLabel, new GridBagConstraints(2, rowIndex + 2, 1, 1, 1, 0, NORTHEAST, HORIZONTAL, rgbInsets, 0, 0));
+                colorInformationPanel.add(originalIntensityValueLabel, new GridBagConstraints(2, rowIndex + 3, 1, 1, 1, 0, NORTHEAST, HORIZONTAL, new Insets(4, 4, 0, 4), 0, 0));
+
+                rowIndex += 3;
+
+                colorInformationPanel.add(outputRgbLabel, new GridBagConstraints(0, ++rowIndex, 3, 1, 0, 0, NORTHWEST, HORIZONTAL, new Insets(4, 4, 0, 4), 0, 0));
+                colorInformationPanel.add(outputColorPanel, new GridBagConstraints(0, ++rowIndex, 1, 4, 0, 0, NORTHWEST, VERTICAL, new Insets(4, 4, 0, 4), 0, 0));
+                colorInformationPanel.add(outputRedLabel, new GridBagConstraints(1, rowIndex + 0, 1, 1, 0, 0, NORTHWEST, NONE, rgbInsets, 0, 0));
+                colorInformationPanel.add(outputGreenLabel, new GridBagConstraints(1, rowIndex + 1, 1, 1, 0, 0, NORTHWEST, NONE, rgbInsets, 0, 0));
+                colorInformationPanel.add(outputBlueLabel, new GridBagConstraints(1, rowIndex + 2, 1, 1, 0, 0, NORTHWEST, NONE, rgbInsets, 0, 0));
+                colorInformationPanel.add(outputIntensityLabel, new GridBagConstraints(1, rowIndex + 3, 1, 1, 0, 0, NORTHWEST, NONE, new Insets(4, 4, 0, 4), 0, 0));
+                colorInformationPanel.add(outputColorRedValueLabel, new GridBagConstraints(2, rowIndex + 0, 1, 1, 1, 0, NORTHEAST, HORIZONTAL, rgbInsets, 0, 0));
+                colorInformationPanel.add(outputColorGreenValueLabel, new GridBagConstraints(2, rowIndex + 1, 1, 1, 1, 0, NORTHEAST, HORIZONTAL, rgbInsets, 0, 0));
+                colorInformationPanel.add(outputColorBlueValueLabel, new GridBagConstraints(2, rowIndex + 2, 1, 1, 1, 0, NORTHEAST, HORIZONTAL, rgbInsets, 0, 0));
+                colorInformationPanel.add(outputIntensityValueLabel, new GridBagConstraints(2, rowIndex + 3, 1, 1, 1, 0, NORTHEAST, HORIZONTAL, new Insets(4, 4, 0, 4), 0, 0));
+
+                return colorInformationPanel;
+            }
+
+            private JPanel setupImagePanel() {
+                final JPanel imageBorder = new JPanel(new BorderLayout());
+                imageBorder.setBorder(new EmptyBorder(8, 8, 8, 8));
+                imageBorder.add(imagePanel, BorderLayout.CENTER);
+
+                return imageBorder;
+            }
+
+            private JPanel setupFunctionPanel() {
+                final JPanel imageBorder = new JPanel(new BorderLayout());
+                imageBorder.setBorder(new EmptyBorder(8, 8, 8, 8));
+                imageBorder.add(functionPanel, BorderLayout.CENTER);
+
+                return imageBorder;
+            }
+
+            /**
+             * Handles the latest mouse position over the image, if it has changed since it was last handled.
+             */
+            private void updateMousePosition() {
+                if (!mousePositionPending) {
+                    return;
+                }
+                mousePositionPending = false;
+
+                final java.awt.Point point = pendingMousePosition;
+                if ((point != null) && rawFloatImage.isValid()) {
+                    final double intensityValue = rawFloatImage.getIntensityValue(point.x, point.y);
+                    highlightIntensitySource.set(intensityValue / rawFloatImage.getIntensityMaxValue());
+
+                    originalColor = rawFloatImage.getPixelARGB(point.x, point.y);
+                    outputColor = rawFloatImage.getPixelARGB(point.x, point.y, functionPanel.getToneCurveLut());
+                } else {
+                    highlightIntensitySource.set(Double.NaN);
+
+                    originalColor = ColorPanel.NO_COLOR;
+                    outputColor = ColorPanel.NO_COLOR;
+                }
+
+                updateIntensityInformationLabels();
+                updateColorInformation();
+                updateHighlightMarkers();
+            }
+
+            /**
+             * Repaints the columns of the input and output markers that move, instead of the whole function panel.
+             */
+            private void updateHighlightMarkers() {
+                final int height = functionPanel.getHeight();
+                setFunctionPanelSize(functionPanel.getWidth(), height);
+
+                final int[] markerXs = highlightOverlay.get();
+                final int newInputMarkerX = markerXs[0];
+                final int newOutputMarkerX = markerXs[1];
+
+                if (newInputMarkerX != inputMarkerX) {
+                    functionPanel.repaint(inputMarkerX - 1, 0, 3, height);
+                    functionPanel.repaint(newInputMarkerX - 1, 0, 3, height);
+                }
+                if (newOutputMarkerX != outputMarkerX) {
+                    functionPanel.repaint(outputMarkerX - 1, 0, 3, height);
+                    functionPanel.repaint(newOutputMarkerX - 1, 0, 3, height);
+                }
+            }
+
+            /**
+             * Paints the input and output markers straight onto the function panel, and remembers where they were painted.
+             */
+            private void paintHighlightMarkers(Graphics2D graphics2D, int width, int height) {
+                setFunctionPanelSize(width, height);
+
+                final int[] markerXs = highlightOverlay.get();
+                inputMarkerX = markerXs[0];
+                outputMarkerX = markerXs[1];
+
+                if (inputMarkerX >= 0) {
+                    graphics2D.setColor(originalMarkerColor);
+                    graphics2D.fillRect(inputMarkerX, 0, 1, height);
+                }
+                if (outputMarkerX >= 0) {
+                    graphics2D.setColor(outputMarkerColor);
+                    graphics2D.fillRect(outputMarkerX, 0, 1, height);
+                }
+            }
+
+            /**
+             * @return the x positions of the input and output markers, -1 for none, in the reused marker positions array
+             */
+            private int[] calculateMarkerPositions() {
+                final double highlightIntensity = highlightIntensitySource.get();
+                final int width = functionPanelWidthSource.get();
+
+                markerPositions[0] = Double.isNaN(highlightIntensity) ? -1 : getMarkerX(highlightIntensity, width);
+                markerPositions[1] = Double.isNaN(highlightIntensity) ? -1 : getMarkerX(functionPanel.getValue(highlightIntensity), width);
+                return markerPositions;
+            }
+
+            private int getMarkerX(double normalizedIntensityValue, int width) {
+                final Range zoomRange = zoomRangeSource.get();
+                if (zoomRange != null) {
+                    normalizedIntensityValue = (normalizedIntensityValue - zoomRange.getMin()) / zoomRange.getLength();
+                }
+
+                return (int) Math.round(width * normalizedIntensityValue);
+            }
+
+            /**
+             * Sets the function panel size sources, compared unboxed so an unchanged size doesn't box anything.
+             */
+            private void setFunctionPanelSize(int width, int height) {
+                if (functionPanelWidthSource.get() != width) {
+                    functionPanelWidthSource.set(width);
+                }
+                if (functionPanelHeightSource.get() != height) {
+                    functionPanelHeightSource.set(height);
+                }
+            }
+
+            /**
+             * Formats the intensity texts, only when the highlighted intensity has changed since they were last formatted.
+             */
+            private void updateIntensityInformationLabels() {
+                if (highlightIntensitySource.getVersion() == shownIntensityVersion) {
+                    return;
+                }
+                shownIntensityVersion = highlightIntensitySource.getVersion();
+
+                final double highlightIntensity = highlightIntensitySource.get();
+                if (!Double.isNaN(highlightIntensity)) {
+                    final double inputValue = highlightIntensity;
+                    final double outputValue = functionPanel.getValue(highlightIntensity);
+
+                    originalIntensityValueLabel.setText(intensityNumberFormat.format(inputValue * 100.0) + "%");
+                    outputIntensityValueLabel.setText(intensityNumberFormat.format(outputValue * 100.0) + "%");
+                } else {
+                    originalIntensityValueLabel.setText("");
+                    outputIntensityValueLabel.setText("");
+                }
+            }
+
+            /**
+             * Updates the curve inputs of the derived products, requests a new frame if the frame depends on them,
+             * and repaints the function panel, where the histograms and the markers are brought up to date.
+             */
+            private void functionChanged() {
+                toneCurveSource.set(functionPanel.getToneCurveLut());
+                zoomRangeSource.set(functionPanel.getZoomRange());
+                adjustingSource.set(functionPanel.isAdjusting());
+
+                renderedFrame.get();
+                originalFrame.get();
+                functionPanel.repaint();
+            }
+
+            /**
+             * Renders, in the background, only as many pixels as the image panel displays.
+             * The newest frame is published to the image panel when done.
+             *
+             * @return the tone curve of the requested frame, or null if there is no image to render
+             */
+            private ToneCurve requestImageRender() {
+                if (!rawFloatImage.isValid()) {
+                    return null;
+                }
+
+                final Dimension displaySize = imagePanel.getDisplaySize(rawFloatImage.getWidth(), rawFloatImage.getHeight());
+                final ToneCurveLut toneCurve = toneCurveSource.get();
+
+                final BufferedImage cachedFrame = renderResultCache.getFrame(toneCurve, displaySize.width, displaySize.height);
+                if (cachedFrame != null) {
+                    // Make sure no render in flight replaces the cached frame
+                    renderService.cancel();
+                    pendingFrameToneCurve = null;
+                    imagePanel.setImage(cachedFrame, rawFloatImage.getWidth(), rawFloatImage.getHeight());
+                    return toneCurve;
+                }
+
+                // Render the low resolution proxy while a point is dragged, only full resolution frames are cached
+                final boolean proxyRender = adjustingSource.get() && (rawFloatImage.getProxy() != null);
+                final RawFloatImage renderImage = proxyRender ? rawFloatImage.getProxy() : rawFloatImage;
+                pendingFrameToneCurve = proxyRender ? null : toneCurve;
+                pendingFrameSize = displaySize;
+                renderService.requestRender(renderImage, toneCurve, displaySize.width, displaySize.height);
+
+                return toneCurve;
+            }
+
+            /**
+             * Shows a frame of the render service, and caches it if it is the full resolution frame of the latest request.
+             * Only the frame of the latest request is ever published.
+             */
+            private void publishFrame(BufferedImage frame) {
+                if (pendingFrameToneCurve != null) {
+                    renderResultCache.putFrame(pendingFrameToneCurve, pendingFrameSize.width, pendingFrameSize.height, frame);
+                    pendingFrameToneCurve = null;
+                }
+
+                imagePanel.setImage(frame, rawFloatImage.getWidth(), rawFloatImage.getHeight());
+            }
+
+            private Histogram getOutputHistogram() {
+                final ToneCurveLut toneCurve = toneCurveSource.get();
+                final int amountBoxes = functionPanelWidthSource.get();
+                final Range zoomRange = zoomRangeSource.get();
+
+                Histogram histogram = renderResultCache.getOutputHistogram(toneCurve, amountBoxes, zoomRange);
+                if (histogram == null) {
+                    histogram = rawFloatImage.getIntensityHistogram(amountBoxes, toneCurve, zoomRange);
+                    renderResultCache.putOutputHistogram(toneCurve, zoomRange, histogram);
+                }
+
+                return histogram;
+            }
+
+            /**
+             * Renders, in the background, the original image at the displayed size, to compare the frames with.
+             * Nothing is rendered while only the changed frame is shown, or if the image panel already has the original
+             * at the displayed size.
+             *
+             * @return the tone curve of the requested frame, or null if no frame is needed
+             */
+            private ToneCurve requestOriginalImageRender() {
+                if (!rawFloatImage.isValid() || (comparisonModeSource.get() == ImagePanel.ComparisonMode.AFTER)) {
+                    originalRenderService.cancel();
+                    return null;
+                }
+
+                final Dimension displaySize = imagePanel.getDisplaySize(rawFloatImage.getWidth(), rawFloatImage.getHeight());
+                final BufferedImage originalImage = imagePanel.getOriginalImage();
+                if ((originalImage != null) && (originalImage.getWidth() == displaySize.width) && (originalImage.getHeight() == displaySize.height)) {
+                    originalRenderService.cancel();
+                    return ToneCurve.IDENTITY;
+                }
+
+                originalRenderService.requestRender(rawFloatImage, ToneCurve.IDENTITY, displaySize.width, displaySize.height);
+
+                return ToneCurve.IDENTITY;
+            }
+
+            private ToneCurve getToneCurve(boolean histogramEnabled) {
+                return histogramEnabled ? functionPanel.getToneCurveLut() : ToneCurve.IDENTITY;
+            }
+
+            /**
+             * The histogram image of the function panel. The histograms are only fetched again when the image,
+             * the curve, the zoom or the width have changed, and the image is only rendered again when the histograms,
+             * the gamma enhancement or the height have changed.
+             */
+            public Image createHistogramImage(int width, int height) {
+                if (!rawFloatImage.isValid() || (width < 1) || (height < 1)) {
+                    return null;
+                }
+
+                setFunctionPanelSize(width, height);
+                return histogramImage.get();
+            }
+
+            /**
+             * Renders the original and output histograms into the reused histogram image.
+             */
+            private BufferedImage renderHistogramImage() {
+                final Histogram original = originalHistogram.get();
+                final BufferedImage image = histogramRenderer.render(functionPanelHeightSource.get(), original, outputHistogram.get(), histogramGammaSource.get());
+
+                if (original.isEstimate()) {
+                    final Graphics2D g = image.createGraphics();
+                    g.setColor(new Color(128, 255, 255, 64));
+                    g.drawString(String.format("Estimated histogram (±%.1f%%)", original.getRelativeStandardError() * 100.0), 4, g.getFontMetrics().getAscent() + 2);
+                    g.dispose();
+                }
+
+                return image;
+            }
+        });
+    }
+
+    private static File getDefaultRawImageDirectory(String[] args) {
+        File defaultDirectory = new File(".");
+
+        if (args.length < 1) {
+            System.out.println("No default raw image directory specified as parameter. Using working directory \".\".");
+        } else if (args.length == 1) {
+            defaultDirectory = new File(args[0]);
+            if (defaultDirectory.isDirectory() && defaultDirectory.exists()) {
+                System.out.println("Using specified directory \"" + defaultDirectory + "\" as default directory for raw images.");
+            } else {
+                System.err.println("Specified default directory for raw images do not exist. \"" + defaultDirectory.getAbsolutePath() + "\"");
+                System.exit(1);
+            }
+        } else {
+            System.err.println("Unknown amount of parameters. You can only specify at most one default directory for raw images.");
+            for (int i = 0; i < args.length; i++) {
+                System.err.println("Argument " + i + ": \"" + args[i] + "\"");
+            }
+            System.exit(1);
+        }
+
+        return defaultDirectory;
+    }
+
+}
\ No newline at end of file
@@ -0,0 +1,148 @@
+package se.cha;
+
+import lombok.Value;
+import se.cha.function.ToneCurveLut;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Rendered frames and output histograms of recently used tone curves, so stepping back and forth between curves
+ * shows them again without rendering.
+ * <p>
+ * Entries are keyed by the fingerprint of the tone curve table, and a hit is checked against the table itself.
+ * When the entries take more memory than the budget the least recently used entries are evicted.
+ * The cache is not thread safe, it is meant to be used on the event dispatch thread.
+ */
+public class RenderResultCache {
+
+    private static final int HISTOGRAM_OVERHEAD_BYTES = 64;
+
+    private final long budgetBytes;
+    private final Map<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long usedBytes = 0;
+
+    public RenderResultCache(long budgetBytes) {
+        if (budgetBytes < 0) {
+            throw new IllegalArgumentException("Render result cache budget can't be negative but was " + budgetBytes);
+        }
+
+        this.budgetBytes = budgetBytes;
+    }
+
+    /**
+     * @return the frame rendered with the tone curve at the display size, or null if it is not cached
+     */
+    public BufferedImage getFrame(ToneCurveLut toneCurve, int width, int height) {
+        return (BufferedImage) get(new Key(Kind.FRAME, toneCurve.getFingerprint(), width, height, null), toneCurve);
+    }
+
+    /**
+     * Caches a copy of the frame, frames of the render service are reused for later renders.
+     */
+    public void putFrame(ToneCurveLut toneCurve, int width, int height, BufferedImage frame) {
+        final long frameBytes = 4L * frame.getWidth() * frame.getHeight();
+        if (frameBytes <= budgetBytes) {
+            put(new Key(Kind.FRAME, toneCurve.getFingerprint(), width, height, null), new Entry(toneCurve, copyFrame(frame), frameBytes));
+        }
+    }
+
+    /**
+     * @return the output histogram of the tone curve with the amount of boxes and zoom, or null if it is not cached
+     */
+    public Histogram getOutputHistogram(ToneCurveLut toneCurve, int amountBoxes, Range zoomRange) {
+        return (Histogram) get(new Key(Kind.OUTPUT_HISTOGRAM, toneCurve.getFingerprint(), amountBoxes, 0, zoomRange), toneCurve);
+    }
+
+    public void putOutputHistogram(ToneCurveLut toneCurve, Range zoomRange, Histogram histogram) {
+        final long histogramBytes = 4L * histogram.getAmountBoxes() + HISTOGRAM_OVERHEAD_BYTES;
+        if (histogramBytes <= budgetBytes) {
+            put(new Key(Kind.OUTPUT_HISTOGRAM, toneCurve.getFingerprint(), histogram.getAmountBoxes(), 0, zoomRange), new Entry(toneCurve, histogram, histogramBytes));
+        }
+    }
+
+    /**
+     * Drops all entries, like when another image is loaded.
+     */
+    public void clear() {
+        entries.clear();
+        usedBytes = 0;
+    }
+
+    /**
+     * Drops the output histograms, like when the histogram of the image is refined.
+     */
+    public void clearHistograms() {
+        final Iterator<Map.Entry<Key, Entry>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            final Map.Entry<Key, Entry> entry = iterator.next();
+            if (entry.getKey().getKind() == Kind.OUTPUT_HISTOGRAM) {
+                usedBytes -= entry.getValue().getBytes();
+                iterator.remove();
+            }
+        }
+    }
+
+    public long getUsedBytes() {
+        return usedBytes;
+    }
+
+    public long getBudgetBytes() {
+        return budgetBytes;
+    }
+
+    private Object get(Key key, ToneCurveLut toneCurve) {
+        final Entry entry = entries.get(key);
+        if ((entry == null) || !entry.getToneCurve().isEquivalent(toneCurve, 0.0)) {
+            return null;
+        }
+
+        return entry.getValue();
+    }
+
+    private void put(Key key, Entry entry) {
+        final Entry replacedEntry = entries.put(key, entry);
+        if (replacedEntry != null) {
+            usedBytes -= replacedEntry.getBytes();
+        }
+        usedBytes += entry.getBytes();
+
+        final Iterator<Entry> leastRecentlyUsed = entries.values().iterator();
+        while (usedBytes > budgetBytes) {
+            usedBytes -= leastRecentlyUsed.next().getBytes();
+            leastRecentlyUsed.remove();
+        }
+    }
+
+    private static BufferedImage copyFrame(BufferedImage frame) {
+        final BufferedImage copy = new BufferedImage(frame.getWidth(), frame.getHeight(), frame.getType());
+        final int[] framePixels = ((DataBufferInt) frame.getRaster().getDataBuffer()).getData();
+        final int[] copyPixels = ((DataBufferInt) copy.getRaster().getDataBuffer()).getData();
+        System.arraycopy(framePixels, 0, copyPixels, 0, framePixels.length);
+
+        return copy;
+    }
+
+    private enum Kind {
+        FRAME, OUTPUT_HISTOGRAM
+    }
+
+    @Value
+    private static class Key {
+        Kind kind;
+        long fingerprint;
+        int width;
+        int height;
+        Range zoomRange;
+    }
+
+    @Value
+    private static class Entry {
+        ToneCurveLut toneCurve;
+        Object value;
+        long bytes;
+    }
+}
@@ -0,0 +1,150 @@
+package se.cha;
+
+import lombok.Value;
+import se.cha.function.ToneCurve;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Renders raw images on a background thread, away from the Swing event dispatch thread.
+ * <p>
+ * The latest request wins. A new request supersedes any render in flight, which stops at its next row band,
+ * and only the frame of the newest request is published. Frames are published on the event dispatch thread.
+ * <p>
+ * Frames are rendered straight into one of two reused images per frame size (double buffering). The render thread
+ * never writes into the image last published, so a displayed frame is never changed while it is painted.
+ * Each render measures its time and its heap allocation on the render thread and the render pool threads,
+ * see {@link #getLastRenderStatistics()}.
+ * Set the system property {@value #PRINT_STATISTICS_PROPERTY} to true to print them.
+ */
+public class RenderService {
+
+    private final ExecutorService renderExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        final Thread thread = new Thread(runnable, "Raw image render");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static final String PRINT_STATISTICS_PROPERTY = "rawimageeditor.printRenderStatistics";
+    private static final int MAX_FRAME_SIZES = 3;
+
+    private final AtomicLong latestRequestId = new AtomicLong();
+    private final Consumer<BufferedImage> framePublisher;
+    private final boolean printStatistics = Boolean.getBoolean(PRINT_STATISTICS_PROPERTY);
+
+    // Only accessed on the render thread
+    private final Map<Dimension, BufferedImage[]> frameBuffers = new LinkedHashMap<>(4, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Dimension, BufferedImage[]> eldest) {
+            return size() > MAX_FRAME_SIZES;
+        }
+    };
+
+    private volatile BufferedImage publishedFrame = null;
+    private volatile RenderStatistics lastRenderStatistics = null;
+
+    /**
+     * @param framePublisher receives every published frame, on the event dispatch thread
+     */
+    public RenderService(Consumer<BufferedImage> framePublisher) {
+        this.framePublisher = framePublisher;
+    }
+
+    /**
+     * Requests a render of the image, downsampled to the target size, with the tone curve. Must be called on the event
+     * dispatch thread. The tone curve must not change after the request is made, like a {@link se.cha.function.ToneCurveLut}.
+     * <p>
+     * The pixels are picked up from the image under its lock, see {@link RawFloatImage#getDownsampledImage(int, int, java.util.function.BooleanSupplier)},
+     * so a file loaded meanwhile never changes a render in flight. A target at least as large as the image renders
+     * it at full resolution. The downsampling is made on the render thread, and is cancelled like the render by a newer request.
+     */
+    public void requestRender(RawFloatImage rawFloatImage, ToneCurve toneCurve, int targetWidth, int targetHeight) {
+        final long requestId = latestRequestId.incrementAndGet();
+
+        renderExecutor.execute(() -> {
+            if (isSuperseded(requestId)) {
+                return;
+            }
+
+            final RawFloatImage downsampledImage = rawFloatImage.getDownsampledImage(targetWidth, targetHeight, () -> isSuperseded(requestId));
+            if ((downsampledImage == null) || isSuperseded(requestId)) {
+                return;
+            }
+
+            render(requestId, downsampledImage, downsampledImage.createRenderContext(toneCurve));
+        });
+    }
+
+    private void render(long requestId, RawFloatImage rawFloatImage, RenderContext renderContext) {
+        final long startTime = System.nanoTime();
+
+        final long startAllocatedBytes = AllocationMeter.getCurrentThreadAllocatedBytes();
+        final BufferedImage frame = getBackBuffer(renderContext.getWidth(), renderContext.getHeight());
+        final long frameAllocatedBytes = AllocationMeter.getCurrentThreadAllocatedBytes() - startAllocatedBytes;
+
+        final boolean completed = rawFloatImage.renderImage(renderContext, frame, () -> isSuperseded(requestId));
+
+        final RenderStatistics renderStatistics = new RenderStatistics(
+                frame.getWidth(), frame.getHeight(),
+                System.nanoTime() - startTime,
+                frameAllocatedBytes + renderContext.getLastRenderAllocatedBytes());
+        lastRenderStatistics = renderStatistics;
+        if (printStatistics) {
+            System.out.println(renderStatistics + (completed ? "" : " (cancelled)"));
+        }
+
+        if (completed) {
+            SwingUtilities.invokeLater(() -> {
+                if (!isSuperseded(requestId)) {
+                    publishedFrame = frame;
+                    framePublisher.accept(frame);
+                }
+            });
+        }
+    }
+
+    /**
+     * @return the one of the two images of the frame size that is not the latest published frame
+     */
+    private BufferedImage getBackBuffer(int width, int height) {
+        final BufferedImage[] buffers = frameBuffers.computeIfAbsent(new Dimension(width, height), size -> new BufferedImage[]{
+                new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB),
+                new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB)});
+
+        return (buffers[0] != publishedFrame) ? buffers[0] : buffers[1];
+    }
+
+    /**
+     * @return time and heap allocation of the latest render, or null if nothing has been rendered yet
+     */
+    public RenderStatistics getLastRenderStatistics() {
+        return lastRenderStatistics;
+    }
+
+    /**
+     * Cancels the render in flight, if any, and makes sure no pending frame gets published.
+     */
+    public void cancel() {
+        latestRequestId.incrementAndGet();
+    }
+
+    private boolean isSuperseded(long requestId) {
+        return latestRequestId.get() != requestId;
+    }
+
+    @Value
+    public static class RenderStatistics {
+        int width;
+        int height;
+        long renderNanos;
+        long allocatedBytes;
+    }
+}
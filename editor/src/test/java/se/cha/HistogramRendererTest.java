@@ -0,0 +1,61 @@
+package se.cha;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+
+public class HistogramRendererTest {
+
+    private static final Color ORIGINAL_FILL_COLOR = new Color(128, 255, 255, 16);
+    private static final Color ORIGINAL_LINE_COLOR = new Color(128, 255, 255, 64);
+    private static final Color OUTPUT_FILL_COLOR = new Color(255, 128, 128, 16);
+    private static final Color OUTPUT_LINE_COLOR = new Color(255, 128, 128, 64);
+
+    @Test
+    public void columnHeightsFollowGammaEnhancedValues() {
+        final Histogram histogram = new Histogram(4, 0.0, 4.0);
+        histogram.addValues(0.5, 1);
+        histogram.addValues(1.5, 10);
+        histogram.addValues(2.5, 100);
+
+        final int height = 50;
+        final double gamma = 0.25;
+        final BufferedImage image = createRenderer().render(height, histogram, new Histogram(4, 0.0, 4.0), gamma);
+
+        // Columns grow from left to right, so each outline is within the column fill
+        for (int x = 0; x < 3; x++) {
+            final int expectedTop = height - (int) (Math.pow(histogram.getValueRGB(x), gamma) * height);
+            for (int y = 0; y < height; y++) {
+                Assert.assertEquals("Column " + x + ", row " + y, y >= expectedTop, (image.getRGB(x, y) >>> 24) != 0);
+            }
+        }
+        // The empty column only has the outline from the previous column, down to the bottom
+        Assert.assertNotEquals(0, image.getRGB(3, 0) >>> 24);
+    }
+
+    @Test
+    public void layersAreBlendedLikeSourceOverComposite() {
+        final BufferedImage expectedImage = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB);
+        final Graphics2D g = expectedImage.createGraphics();
+        g.setColor(OUTPUT_FILL_COLOR);
+        g.fillRect(0, 0, 1, 1);
+        g.setColor(ORIGINAL_FILL_COLOR);
+        g.fillRect(0, 0, 1, 1);
+        g.setColor(ORIGINAL_LINE_COLOR);
+        g.fillRect(0, 0, 1, 1);
+        g.dispose();
+
+        final int argb = HistogramRenderer.over(HistogramRenderer.over(HistogramRenderer.over(0, OUTPUT_FILL_COLOR), ORIGINAL_FILL_COLOR), ORIGINAL_LINE_COLOR);
+        final int expectedArgb = expectedImage.getRGB(0, 0);
+        // Java2D rounds every intermediate blend to 8 bits
+        for (int shift = 0; shift < 32; shift += 8) {
+            Assert.assertEquals((expectedArgb >>> shift) & 0xFF, (argb >>> shift) & 0xFF, 3.0);
+        }
+    }
+
+    private static HistogramRenderer createRenderer() {
+        return new HistogramRenderer(ORIGINAL_FILL_COLOR, ORIGINAL_LINE_COLOR, OUTPUT_FILL_COLOR, OUTPUT_LINE_COLOR);
+    }
+}
@@ -0,0 +1,66 @@
+package se.cha;
+
+import org.junit.Assert;
+import org.junit.Test;
+import se.cha.function.SplineFunction;
+import se.cha.function.ToneCurve;
+import se.cha.function.ToneCurveLut;
+
+import java.awt.image.BufferedImage;
+
+public class RenderResultCacheTest {
+
+    @Test
+    public void cachedFrameIsACopy() {
+        final RenderResultCache cache = new RenderResultCache(1024 * 1024);
+        final ToneCurveLut toneCurve = new ToneCurveLut(new SplineFunction(), 64);
+        final BufferedImage frame = new BufferedImage(8, 8, BufferedImage.TYPE_INT_RGB);
+        frame.setRGB(1, 2, 0xFF123456);
+
+        cache.putFrame(toneCurve, 8, 8, frame);
+        frame.setRGB(1, 2, 0xFF000000);
+
+        final BufferedImage cachedFrame = cache.getFrame(new ToneCurveLut(new SplineFunction(), 64), 8, 8);
+        Assert.assertNotNull(cachedFrame);
+        Assert.assertEquals(0xFF123456, cachedFrame.getRGB(1, 2));
+        Assert.assertNull(cache.getFrame(toneCurve, 8, 9));
+        Assert.assertNull(cache.getFrame(new ToneCurveLut(ToneCurve.IDENTITY, 65), 8, 8));
+    }
+
+    @Test
+    public void leastRecentlyUsedEntriesAreEvictedBeyondBudget() {
+        // Room for two 16x16 frames of 1 KiB each
+        final RenderResultCache cache = new RenderResultCache(2048);
+        final ToneCurveLut toneCurve1 = new ToneCurveLut(x -> x, 16);
+        final ToneCurveLut toneCurve2 = new ToneCurveLut(x -> x * x, 16);
+        final ToneCurveLut toneCurve3 = new ToneCurveLut(x -> Math.sqrt(x), 16);
+        final BufferedImage frame = new BufferedImage(16, 16, BufferedImage.TYPE_INT_RGB);
+
+        cache.putFrame(toneCurve1, 16, 16, frame);
+        cache.putFrame(toneCurve2, 16, 16, frame);
+        Assert.assertNotNull(cache.getFrame(toneCurve1, 16, 16));
+        cache.putFrame(toneCurve3, 16, 16, frame);
+
+        Assert.assertNotNull(cache.getFrame(toneCurve1, 16, 16));
+        Assert.assertNull(cache.getFrame(toneCurve2, 16, 16));
+        Assert.assertNotNull(cache.getFrame(toneCurve3, 16, 16));
+        Assert.assertEquals(2048, cache.getUsedBytes());
+    }
+
+    @Test
+    public void outputHistogramsAreKeyedByZoom() {
+        final RenderResultCache cache = new RenderResultCache(1024 * 1024);
+        final ToneCurveLut toneCurve = new ToneCurveLut(new SplineFunction(), 64);
+        final Histogram histogram = new Histogram(10, 0.0, 1.0);
+
+        cache.putOutputHistogram(toneCurve, new Range(0.2, 0.8), histogram);
+
+        Assert.assertSame(histogram, cache.getOutputHistogram(toneCurve, 10, new Range(0.2, 0.8)));
+        Assert.assertNull(cache.getOutputHistogram(toneCurve, 10, null));
+        Assert.assertNull(cache.getOutputHistogram(toneCurve, 11, new Range(0.2, 0.8)));
+
+        cache.clearHistograms();
+        Assert.assertNull(cache.getOutputHistogram(toneCurve, 10, new Range(0.2, 0.8)));
+        Assert.assertEquals(0, cache.getUsedBytes());
+    }
+}